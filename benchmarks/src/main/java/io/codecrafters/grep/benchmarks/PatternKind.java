@@ -0,0 +1,62 @@
+package io.codecrafters.grep.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Pattern shapes covered by the benchmarks, each with a filler character the
+ * pattern never matches and a character it always matches, so inputs with an
+ * exact hit rate can be generated.
+ */
+public enum PatternKind {
+
+    LITERAL("e", 'x', 'e'),
+    DIGIT("\\d", 'x', '7'),
+    WORD("\\w", ' ', 'w'),
+    POSITIVE_CLASS("[abc]", 'x', 'b'),
+    NEGATIVE_CLASS("[^abc]", 'a', 'z');
+
+    private final String pattern;
+    private final char filler;
+    private final char hit;
+
+    PatternKind(String pattern, char filler, char hit) {
+        this.pattern = pattern;
+        this.filler = filler;
+        this.hit = hit;
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Builds {@code count} lines of {@code length} characters where a
+     * {@code hitRate} fraction contains one matching character at a random
+     * position. The seed is fixed so every fork sees the same input.
+     */
+    public String[] lines(int count, int length, double hitRate) {
+        Random random = new Random(42);
+        String[] lines = new String[count];
+        char[] line = new char[length];
+        for (int i = 0; i < count; i++) {
+            Arrays.fill(line, filler);
+            if (random.nextDouble() < hitRate) {
+                line[random.nextInt(length)] = hit;
+            }
+            lines[i] = new String(line);
+        }
+        return lines;
+    }
+
+    public static ByteBuffer[] encode(String[] lines) {
+        ByteBuffer[] encoded = new ByteBuffer[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            encoded[i] = ByteBuffer.wrap(lines[i].getBytes(StandardCharsets.UTF_8));
+        }
+        return encoded;
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.codecrafters.grep.benchmarks;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import io.codecrafters.grep.parser.PatternParser;
+import io.codecrafters.grep.parser.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of turning a pattern string into a syntax tree and into a
+ * ready-to-match {@link RegexPattern}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PatternParserBenchmark {
+
+    @Param
+    public PatternKind kind;
+
+    private String pattern;
+
+    @Setup
+    public void setUp() {
+        pattern = kind.pattern();
+    }
+
+    @Benchmark
+    public Node parse() {
+        return PatternParser.parse(pattern);
+    }
+
+    @Benchmark
+    public RegexPattern compile() {
+        return RegexPattern.compile(pattern);
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.codecrafters.grep.benchmarks;
+
+import io.codecrafters.grep.matcher.Matcher;
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line-matching throughput across pattern kinds, line lengths and hit rates,
+ * for both decoded text and raw UTF-8 bytes. Each invocation matches a fixed
+ * batch of lines, so scores read as lines per microsecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RegexPatternBenchmark {
+
+    private static final int LINES = 1024;
+
+    @Param
+    public PatternKind kind;
+
+    @Param({"80", "1024"})
+    public int lineLength;
+
+    @Param({"0.0", "0.01", "0.5"})
+    public double hitRate;
+
+    private RegexPattern pattern;
+    private Matcher matcher;
+    private String[] lines;
+    private ByteBuffer[] encodedLines;
+
+    @Setup
+    public void setUp() {
+        pattern = RegexPattern.compile(kind.pattern());
+        matcher = pattern.matcher();
+        lines = kind.lines(LINES, lineLength, hitRate);
+        encodedLines = PatternKind.encode(lines);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int matchesString() {
+        int hits = 0;
+        for (String line : lines) {
+            if (pattern.matches(line)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int matchesUtf8() {
+        int hits = 0;
+        for (ByteBuffer line : encodedLines) {
+            if (matcher.matches(line, 0, line.limit())) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+}
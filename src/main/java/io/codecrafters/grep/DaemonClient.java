@@ -0,0 +1,90 @@
+package io.codecrafters.grep;
+
+import io.codecrafters.grep.parser.PatternFlag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Thin client that hands an invocation to a {@link DaemonServer} and
+ * replays its output. Standard input, when the search reads it, is sent from
+ * a separate thread while output is received, so neither side can stall on
+ * a full socket buffer.
+ */
+final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Runs the arguments in the daemon listening on the socket and returns
+     * the exit status it reports. {@code stdin} is null when the search does
+     * not read standard input.
+     */
+    static int run(Path socket, List<String> args, Set<PatternFlag> localeFlags, Path workingDirectory,
+                   InputStream stdin, OutputStream out, OutputStream err) throws IOException {
+        try (SocketChannel connection = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            connection.connect(UnixDomainSocketAddress.of(socket));
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(connection)));
+            DaemonProtocol.writeRequest(request,
+                    new DaemonProtocol.Request(workingDirectory, localeFlags, args, stdin != null));
+            request.flush();
+
+            // The sender is not waited for: once the status is in, unread input no longer matters.
+            Thread.ofPlatform().name("grep-stdin").daemon().start(() -> {
+                try {
+                    if (stdin != null) {
+                        stdin.transferTo(request);
+                        request.flush();
+                    }
+                    connection.shutdownOutput();
+                } catch (IOException e) {
+                    // The daemon stopped reading; its response says why.
+                }
+            });
+            return receive(new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection))), out, err);
+        }
+    }
+
+    private static int receive(DataInputStream response, OutputStream out, OutputStream err) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        while (true) {
+            byte kind;
+            try {
+                kind = response.readByte();
+            } catch (EOFException e) {
+                throw new IOException("Daemon closed the connection without an exit status", e);
+            }
+            if (kind == DaemonProtocol.EXIT) {
+                return response.readInt();
+            }
+            int length = response.readInt();
+            if (length > buffer.length) {
+                buffer = new byte[length];
+            }
+            response.readFully(buffer, 0, length);
+            if (kind == DaemonProtocol.STDOUT) {
+                out.write(buffer, 0, length);
+            } else {
+                // Output written before an error message is shown before it, as in a local run.
+                out.flush();
+                err.write(buffer, 0, length);
+                err.flush();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package io.codecrafters.grep;
+
+import io.codecrafters.grep.parser.PatternFlag;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wire format between {@link DaemonClient} and {@link DaemonServer}. A
+ * connection carries one invocation: the client sends a request with its
+ * working directory, locale flags and arguments, followed by its standard
+ * input when the search reads it, and then shuts down its side. The server
+ * answers with frames of standard output and standard error, in the order
+ * they were written, ending with the exit status.
+ */
+final class DaemonProtocol {
+
+    static final int VERSION = 1;
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    record Request(Path workingDirectory, Set<PatternFlag> localeFlags, List<String> args, boolean sendsStdin) {
+    }
+
+    private DaemonProtocol() {
+    }
+
+    static void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeInt(VERSION);
+        writeString(out, request.workingDirectory().toString());
+        out.writeInt(request.localeFlags().size());
+        for (PatternFlag flag : request.localeFlags()) {
+            writeString(out, flag.name());
+        }
+        out.writeInt(request.args().size());
+        for (String arg : request.args()) {
+            writeString(out, arg);
+        }
+        out.writeBoolean(request.sendsStdin());
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported protocol version: " + version);
+        }
+        Path workingDirectory = Path.of(readString(in));
+        Set<PatternFlag> localeFlags = EnumSet.noneOf(PatternFlag.class);
+        for (int i = in.readInt(); i > 0; i--) {
+            try {
+                localeFlags.add(PatternFlag.valueOf(readString(in)));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown pattern flag in request", e);
+            }
+        }
+        int argCount = in.readInt();
+        List<String> args = new ArrayList<>(Math.min(argCount, 64));
+        for (int i = 0; i < argCount; i++) {
+            args.add(readString(in));
+        }
+        return new Request(workingDirectory, localeFlags, args, in.readBoolean());
+    }
+
+    // Strings are length-prefixed UTF-8; writeUTF would limit a pattern to 64 KiB.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length in request: " + length);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wraps everything written to it in frames of one kind. Frames from
+     * several streams and threads may share the connection, so each one is
+     * written whole under the connection's lock.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream connection;
+        private final byte kind;
+
+        FrameOutputStream(DataOutputStream connection, byte kind) {
+            this.connection = connection;
+            this.kind = kind;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (connection) {
+                connection.writeByte(kind);
+                connection.writeInt(len);
+                connection.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (connection) {
+                connection.flush();
+            }
+        }
+    }
+
+}
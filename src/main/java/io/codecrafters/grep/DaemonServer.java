@@ -0,0 +1,209 @@
+package io.codecrafters.grep;
+
+import io.codecrafters.grep.cli.Options;
+import io.codecrafters.grep.cli.UsageException;
+import io.codecrafters.grep.matcher.PatternCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-running grep that takes invocations from {@link DaemonClient} over
+ * a Unix domain socket, so each one skips JVM startup and runs on matching
+ * code the JIT has already compiled. Patterns stay compiled in a shared
+ * {@link PatternCache}, and each keeps the matchers of earlier searches, so
+ * their DFA caches are warm when the same pattern comes again. Every
+ * connection is served on its own virtual thread. The socket is only
+ * accessible to the owner, since searches run with the daemon's file
+ * permissions.
+ */
+final class DaemonServer implements Closeable {
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+    // Each cached pattern may hold a few warm DFAs, so fewer are kept than the default.
+    private static final int PATTERN_CACHE_SIZE = 256;
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final PatternCache patterns = new PatternCache(PATTERN_CACHE_SIZE);
+
+    private DaemonServer(Path socket, ServerSocketChannel server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    /**
+     * Listens on the socket path, replacing a socket left behind by a daemon
+     * that is gone. Fails if a daemon still answers there, or if the path is
+     * any other kind of file. The socket is bound in a directory only the
+     * owner can enter and moved into place once it is private, so nobody
+     * else can connect in between.
+     */
+    static DaemonServer bind(Path socket) throws IOException {
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(socket)) {
+                throw new IOException("File exists and is not a socket");
+            }
+            if (answers(socket)) {
+                throw new IOException("A daemon is already listening");
+            }
+            Files.delete(socket);
+        }
+        Path parent = socket.toAbsolutePath().getParent();
+        Path directory = Files.createTempDirectory(parent, ".grep-daemon",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Path bound = directory.resolve("socket");
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(UnixDomainSocketAddress.of(bound));
+            Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            Files.move(bound, socket);
+        } catch (IOException | UnsupportedOperationException e) {
+            server.close();
+            Files.deleteIfExists(bound);
+            throw e;
+        } finally {
+            Files.delete(directory);
+        }
+        return new DaemonServer(socket, server);
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        int mode = (int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        return (mode & S_IFMT) == S_IFSOCK;
+    }
+
+    private static boolean answers(Path socket) throws IOException {
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(UnixDomainSocketAddress.of(socket));
+            return true;
+        } catch (ConnectException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accepts connections until the daemon is closed, then waits for the
+     * invocations in progress to finish.
+     */
+    void serve() throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                SocketChannel connection;
+                try {
+                    connection = server.accept();
+                } catch (AsynchronousCloseException e) {
+                    return;
+                }
+                executor.execute(() -> handle(connection));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.close();
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private void handle(SocketChannel connection) {
+        try (connection) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection)));
+            DataOutputStream frames = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(connection)));
+            DaemonProtocol.Request request = DaemonProtocol.readRequest(in);
+
+            OutputStream out = new BufferedOutputStream(
+                    new DaemonProtocol.FrameOutputStream(frames, DaemonProtocol.STDOUT), OUTPUT_BUFFER_SIZE);
+            PrintStream err = new PrintStream(
+                    new DaemonProtocol.FrameOutputStream(frames, DaemonProtocol.STDERR), true, StandardCharsets.UTF_8);
+            InputStream stdin = request.sendsStdin() ? in : InputStream.nullInputStream();
+            int status;
+            try {
+                status = Main.run(Options.parse(request.args().toArray(String[]::new)), request.localeFlags(),
+                        request.workingDirectory(), new StreamChannel(stdin), out, err, patterns);
+            } catch (UsageException e) {
+                status = Main.reportUsage(e, new PrintStream(out, false, StandardCharsets.UTF_8), err);
+            } catch (IOException | RuntimeException | Error e) {
+                // Only this invocation fails, even on an Error such as a stack overflow, and the client
+                // still gets its status; if the client is gone, writing the status below finds out.
+                err.println("grep: " + (e.getMessage() != null ? e.getMessage() : e));
+                status = 2;
+            }
+            out.flush();
+            synchronized (frames) {
+                frames.writeByte(DaemonProtocol.EXIT);
+                frames.writeInt(status);
+                frames.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            // The client went away or sent a malformed request; there is nobody left to report to.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Unlike Channels.newChannel, reads without holding a monitor, which would pin the virtual thread.
+    private static final class StreamChannel implements ReadableByteChannel {
+
+        private final InputStream in;
+        private boolean open = true;
+
+        StreamChannel(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            byte[] bytes = dst.hasArray() ? dst.array() : new byte[dst.remaining()];
+            int offset = dst.hasArray() ? dst.arrayOffset() + dst.position() : 0;
+            int read = in.read(bytes, offset, dst.remaining());
+            if (read > 0) {
+                if (dst.hasArray()) {
+                    dst.position(dst.position() + read);
+                } else {
+                    dst.put(bytes, 0, read);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+}
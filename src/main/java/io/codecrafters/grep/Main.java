@@ -1,37 +1,227 @@
 package io.codecrafters.grep;
 
+import io.codecrafters.grep.cli.Options;
+import io.codecrafters.grep.cli.UsageException;
+import io.codecrafters.grep.matcher.PatternCache;
 import io.codecrafters.grep.matcher.RegexPattern;
+import io.codecrafters.grep.parser.ParseException;
+import io.codecrafters.grep.parser.PatternFlag;
+import io.codecrafters.grep.search.RecursiveSearcher;
+import io.codecrafters.grep.search.SearchOptions;
+import io.codecrafters.grep.search.Searcher;
+import io.codecrafters.grep.search.TrigramIndex;
 
-import java.util.Scanner;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Main {
 
-    public static void main(String[] args) {
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
         // Validate arguments and show usage if needed
-        if (args.length != 2) {
-            showUsage();
-            System.exit(1);
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (UsageException e) {
+            System.exit(reportUsage(e, System.out, System.err));
+            return;
+        }
+
+        if (options.serveSocket() != null) {
+            try (DaemonServer server = DaemonServer.bind(Path.of(options.serveSocket()))) {
+                server.serve();
+            } catch (IOException e) {
+                reportError(System.err, options.serveSocket(), e);
+                System.exit(2);
+            }
+            return;
         }
 
-        // At this point we have exactly 2 arguments
-        if (!args[0].equals("-E")) {
-            showUsage();  // First argument must be -E
-            System.exit(1);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE);
+        int status;
+        if (options.connectSocket() != null) {
+            boolean sendsStdin = options.files().isEmpty() && !options.recursive() && !options.buildIndex();
+            try {
+                status = DaemonClient.run(Path.of(options.connectSocket()), forwardedArgs(args), localeFlags(),
+                        Path.of("").toAbsolutePath(), sendsStdin ? System.in : null, out, System.err);
+            } catch (IOException e) {
+                reportError(System.err, options.connectSocket(), e);
+                status = 2;
+            }
+        } else {
+            status = run(options, localeFlags(), Path.of(""), new FileInputStream(FileDescriptor.in).getChannel(),
+                    out, System.err, new PatternCache(1));
+        }
+        out.flush();
+        System.exit(status);
+    }
+
+    /**
+     * Carries out one invocation with the given streams, resolving relative
+     * paths against {@code workingDirectory} while printing them as given,
+     * and returns the exit status. Patterns given on the command line are
+     * taken from {@code patterns}, so a long-running caller reuses them.
+     */
+    static int run(Options options, Set<PatternFlag> localeFlags, Path workingDirectory, ReadableByteChannel stdin,
+                   OutputStream out, PrintStream err, PatternCache patterns) throws IOException, InterruptedException {
+        if (options.buildIndex()) {
+            return buildIndexes(options.files(), workingDirectory, err);
         }
 
-        String pattern = args[1];
-        try (Scanner scanner = new Scanner(System.in)) {
-            String inputLine = scanner.nextLine();
-            RegexPattern regexPattern = RegexPattern.compile(pattern);
-            if (regexPattern.matches(inputLine)) {
-                System.exit(0);
+        Set<PatternFlag> flags = EnumSet.noneOf(PatternFlag.class);
+        flags.addAll(localeFlags);
+        if (options.ignoreCase()) {
+            flags.add(PatternFlag.IGNORE_CASE);
+        }
+        RegexPattern regexPattern;
+        try {
+            if (options.patternFiles().isEmpty()) {
+                regexPattern = patterns.get(options.pattern(), flags);
             } else {
-                System.exit(1);
+                List<String> filePatterns = new ArrayList<>();
+                for (String patternFile : options.patternFiles()) {
+                    try {
+                        filePatterns.addAll(Files.readAllLines(workingDirectory.resolve(patternFile)));
+                    } catch (IOException e) {
+                        reportError(err, patternFile, e);
+                        return 2;
+                    }
+                }
+                regexPattern = RegexPattern.compileAll(filePatterns, flags);
+            }
+        } catch (ParseException e) {
+            err.println("grep: " + e.getMessage());
+            return 2;
+        }
+        List<String> files = options.files();
+
+        SearchOptions searchOptions = SearchOptions.builder()
+                .onlyMatching(options.onlyMatching())
+                .byteOffset(options.byteOffset())
+                .countOnly(options.count())
+                .quiet(options.quiet())
+                .listFiles(options.listFiles())
+                .maxCount(options.maxCount() < 0 ? Long.MAX_VALUE : options.maxCount())
+                .invert(options.invert())
+                .beforeContext(options.beforeContext())
+                .afterContext(options.afterContext())
+                .build();
+        boolean matched = false;
+        AtomicBoolean failed = new AtomicBoolean();
+
+        if (options.recursive() && !(files.size() == 1 && !Files.isDirectory(workingDirectory.resolve(files.getFirst())))) {
+            RecursiveSearcher searcher = new RecursiveSearcher(regexPattern, searchOptions, out, (file, e) -> {
+                reportError(err, file.toString(), e);
+                failed.set(true);
+            }, RecursiveSearcher.DEFAULT_MAX_OPEN_FILES);
+            // Without operands grep -r searches the working directory and prints paths relative to it.
+            matched = files.isEmpty()
+                    ? searcher.search(List.of(Path.of(".")), workingDirectory.resolve("."), workingDirectory)
+                    : searcher.search(files.stream().map(Path::of).toList(), null, workingDirectory);
+        } else if (files.isEmpty()) {
+            try (Searcher searcher = new Searcher(regexPattern, searchOptions, out)) {
+                matched = searcher.search(stdin, null);
+            }
+        } else {
+            try (Searcher searcher = new Searcher(regexPattern, searchOptions, out)) {
+                for (String file : files) {
+                    // With -q the first match decides the exit status, so later files are not opened.
+                    if (matched && options.quiet()) {
+                        break;
+                    }
+                    try {
+                        matched |= searcher.search(workingDirectory.resolve(file),
+                                files.size() > 1 || options.listFiles() ? file : null);
+                    } catch (IOException e) {
+                        reportError(err, file, e);
+                        failed.set(true);
+                    }
+                }
             }
         }
+
+        // A match found with -q wins over errors from other files, as in grep.
+        return matched && options.quiet() ? 0 : failed.get() ? 2 : matched ? 0 : 1;
+    }
+
+    // Without operands the working directory is indexed; returns the exit status.
+    private static int buildIndexes(List<String> directories, Path workingDirectory, PrintStream err) {
+        int status = 0;
+        for (String directory : directories.isEmpty() ? List.of(".") : directories) {
+            try {
+                TrigramIndex.build(workingDirectory.resolve(directory));
+            } catch (IOException e) {
+                reportError(err, directory, e);
+                status = 2;
+            }
+        }
+        return status;
+    }
+
+    // The daemon gets the command line without the client's own --connect option.
+    private static List<String> forwardedArgs(String[] args) {
+        List<String> forwarded = new ArrayList<>(args.length);
+        boolean endOfOptions = false;
+        for (int i = 0; i < args.length; i++) {
+            if (!endOfOptions && args[i].equals("--connect")) {
+                i++;
+                continue;
+            }
+            endOfOptions |= args[i].equals("--");
+            forwarded.add(args[i]);
+        }
+        return forwarded;
+    }
+
+    // As in grep, the C locale limits \d and \w to ASCII; the first of these variables that is set decides.
+    private static Set<PatternFlag> localeFlags() {
+        for (String variable : List.of("LC_ALL", "LC_CTYPE", "LANG")) {
+            String locale = System.getenv(variable);
+            if (locale != null && !locale.isEmpty()) {
+                return locale.equals("C") || locale.equals("POSIX")
+                        ? EnumSet.of(PatternFlag.ASCII)
+                        : EnumSet.noneOf(PatternFlag.class);
+            }
+        }
+        return EnumSet.noneOf(PatternFlag.class);
+    }
+
+    // Returns the exit status for a command line that cannot be run.
+    static int reportUsage(UsageException e, PrintStream out, PrintStream err) {
+        err.println("grep: " + e.getMessage());
+        showUsage(out);
+        return 1;
+    }
+
+    static void reportError(PrintStream err, String file, IOException e) {
+        String reason = switch (e) {
+            case NoSuchFileException ignored -> "No such file or directory";
+            case AccessDeniedException ignored -> "Permission denied";
+            default -> e.getMessage();
+        };
+        err.println("grep: " + file + ": " + reason);
     }
 
-    private static void showUsage() {
-        System.out.println("Usage: ./your_program.sh -E <pattern>");
+    private static void showUsage(PrintStream out) {
+        out.println("Usage: ./your_program.sh [-robcqliv] [-m num] [-A num] [-B num] [-C num] -E (<pattern> | -f <file>) [file...]");
+        out.println("       ./your_program.sh --build-index [directory...]");
+        out.println("       ./your_program.sh --serve <socket>");
+        out.println("       ./your_program.sh --connect <socket> <search options...>");
     }
 }
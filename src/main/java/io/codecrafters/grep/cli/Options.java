@@ -0,0 +1,230 @@
+package io.codecrafters.grep.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Options {
+
+    private String pattern;
+    private final List<String> patternFiles = new ArrayList<>();
+    private final List<String> files = new ArrayList<>();
+    private boolean extended;
+    private boolean recursive;
+    private boolean onlyMatching;
+    private boolean byteOffset;
+    private boolean count;
+    private boolean quiet;
+    private boolean listFiles;
+    private boolean ignoreCase;
+    private boolean invert;
+    private boolean buildIndex;
+    private String serveSocket;
+    private String connectSocket;
+    private long maxCount = -1;
+    // Context lengths from -A, -B and -C, or -1 when not given; -A and -B win over -C.
+    private int afterContext = -1;
+    private int beforeContext = -1;
+    private int context = -1;
+
+    private Options() {
+    }
+
+    public static Options parse(String... args) {
+        Options options = new Options();
+        boolean endOfOptions = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!endOfOptions && arg.equals("--")) {
+                endOfOptions = true;
+            } else if (!endOfOptions && arg.equals("--build-index")) {
+                options.buildIndex = true;
+            } else if (!endOfOptions && (arg.equals("--serve") || arg.equals("--connect"))) {
+                if (i + 1 >= args.length) {
+                    throw new UsageException("Option " + arg + " requires an argument");
+                }
+                if (arg.equals("--serve")) {
+                    options.serveSocket = args[++i];
+                } else {
+                    options.connectSocket = args[++i];
+                }
+            } else if (!endOfOptions && arg.startsWith("-") && arg.length() > 1) {
+                i = options.parseFlags(args, i);
+            } else {
+                options.files.add(arg);
+            }
+        }
+
+        // Building an index takes only directories, and a daemon gets its searches from clients.
+        if (options.buildIndex || options.serveSocket != null) {
+            return options;
+        }
+        if (!options.extended) {
+            throw new UsageException("Option -E is required");
+        }
+        // With -f every operand is a file; otherwise the first one is the pattern.
+        if (options.patternFiles.isEmpty()) {
+            if (options.files.isEmpty()) {
+                throw new UsageException("No pattern given");
+            }
+            options.pattern = options.files.removeFirst();
+        }
+        return options;
+    }
+
+    // Parses a cluster of short flags such as -rE; returns the index of the last argument consumed.
+    private int parseFlags(String[] args, int index) {
+        String arg = args[index];
+        for (int i = 1; i < arg.length(); i++) {
+            char flag = arg.charAt(i);
+            switch (flag) {
+                case 'E' -> extended = true;
+                case 'r' -> recursive = true;
+                case 'o' -> onlyMatching = true;
+                case 'b' -> byteOffset = true;
+                case 'c' -> count = true;
+                case 'q' -> quiet = true;
+                case 'l' -> listFiles = true;
+                case 'i' -> ignoreCase = true;
+                case 'v' -> invert = true;
+                case 'f', 'm', 'A', 'B', 'C' -> {
+                    // The value is the rest of the cluster (-fFILE) or the next argument (-f FILE).
+                    boolean attached = i + 1 < arg.length();
+                    if (!attached && index + 1 >= args.length) {
+                        throw new UsageException("Option -" + flag + " requires an argument");
+                    }
+                    setValue(flag, attached ? arg.substring(i + 1) : args[index + 1]);
+                    return attached ? index : index + 1;
+                }
+                default -> throw new UsageException("Unknown option: -" + flag);
+            }
+        }
+        return index;
+    }
+
+    private void setValue(char flag, String value) {
+        if (flag == 'f') {
+            patternFiles.add(value);
+            return;
+        }
+        if (flag != 'm') {
+            int length = parseContextLength(value);
+            switch (flag) {
+                case 'A' -> afterContext = length;
+                case 'B' -> beforeContext = length;
+                default -> context = length;
+            }
+            return;
+        }
+        try {
+            maxCount = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new UsageException("Invalid max count: " + value);
+        }
+        if (maxCount < 0) {
+            throw new UsageException("Invalid max count: " + value);
+        }
+    }
+
+    private static int parseContextLength(String value) {
+        try {
+            int length = Integer.parseInt(value);
+            if (length >= 0) {
+                return length;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new UsageException("Invalid context length: " + value);
+    }
+
+    /**
+     * Returns the pattern operand, or null when patterns are read from files.
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    public List<String> patternFiles() {
+        return List.copyOf(patternFiles);
+    }
+
+    public List<String> files() {
+        return List.copyOf(files);
+    }
+
+    public boolean recursive() {
+        return recursive;
+    }
+
+    public boolean onlyMatching() {
+        return onlyMatching;
+    }
+
+    public boolean byteOffset() {
+        return byteOffset;
+    }
+
+    public boolean count() {
+        return count;
+    }
+
+    public boolean quiet() {
+        return quiet;
+    }
+
+    public boolean listFiles() {
+        return listFiles;
+    }
+
+    public boolean ignoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Whether the operands are directories to build a trigram index for
+     * instead of inputs to search (--build-index).
+     */
+    public boolean buildIndex() {
+        return buildIndex;
+    }
+
+    /**
+     * Returns the Unix domain socket to accept searches on (--serve), or null.
+     */
+    public String serveSocket() {
+        return serveSocket;
+    }
+
+    /**
+     * Returns the Unix domain socket of a daemon to run the search in (--connect), or null.
+     */
+    public String connectSocket() {
+        return connectSocket;
+    }
+
+    public boolean invert() {
+        return invert;
+    }
+
+    /**
+     * Returns the number of lines to print after each selected line (-A, or -C), 0 by default.
+     */
+    public int afterContext() {
+        return afterContext >= 0 ? afterContext : Math.max(context, 0);
+    }
+
+    /**
+     * Returns the number of lines to print before each selected line (-B, or -C), 0 by default.
+     */
+    public int beforeContext() {
+        return beforeContext >= 0 ? beforeContext : Math.max(context, 0);
+    }
+
+    /**
+     * Returns the -m limit, or -1 when none was given.
+     */
+    public long maxCount() {
+        return maxCount;
+    }
+
+}
@@ -0,0 +1,9 @@
+package io.codecrafters.grep.cli;
+
+public class UsageException extends IllegalArgumentException {
+
+    public UsageException(String message) {
+        super(message);
+    }
+
+}
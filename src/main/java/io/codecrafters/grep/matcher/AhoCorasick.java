@@ -0,0 +1,247 @@
+package io.codecrafters.grep.matcher;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over the UTF-8 bytes of many literals, so a line is
+ * scanned once however many literals there are. Trie edges are stored as
+ * compressed rows: each state's edges are a sorted slice of {@code labels}
+ * and {@code targets}, and only the root, which nearly every byte passes
+ * through, gets a dense 256-entry row. Failure links are followed while
+ * matching, which keeps memory linear in the total literal length. Instances
+ * are immutable and safe to share between threads.
+ */
+final class AhoCorasick {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final int[] rootNext;
+    private final int[] edgeStart;
+    private final byte[] labels;
+    private final int[] targets;
+    private final int[] failure;
+    private final boolean[] terminal;
+    private final boolean[] literalEnd;
+    private final int maxLength;
+
+    private AhoCorasick(int[] edgeStart, byte[] labels, int[] targets, boolean[] terminal, int maxLength) {
+        this.edgeStart = edgeStart;
+        this.labels = labels;
+        this.targets = targets;
+        this.literalEnd = terminal.clone();
+        this.terminal = terminal;
+        this.maxLength = maxLength;
+        this.rootNext = new int[256];
+        for (int b = 0; b < rootNext.length; b++) {
+            int next = child(ROOT, b);
+            rootNext[b] = next == NONE ? ROOT : next;
+        }
+        this.failure = new int[terminal.length];
+        computeFailureLinks();
+    }
+
+    static AhoCorasick forLiterals(List<String> literals) {
+        // Children are keyed by (state << 8 | byte) while the trie is built.
+        Map<Long, Integer> children = new HashMap<>();
+        boolean[] terminal = new boolean[16];
+        int stateCount = 1;
+        int maxLength = 0;
+        for (String literal : literals) {
+            int state = ROOT;
+            byte[] encoded = literal.getBytes(StandardCharsets.UTF_8);
+            maxLength = Math.max(maxLength, encoded.length);
+            for (byte b : encoded) {
+                long key = ((long) state << 8) | (b & 0xFF);
+                Integer next = children.get(key);
+                if (next == null) {
+                    next = stateCount++;
+                    children.put(key, next);
+                }
+                state = next;
+            }
+            if (state >= terminal.length) {
+                terminal = Arrays.copyOf(terminal, Math.max(terminal.length * 2, state + 1));
+            }
+            terminal[state] = true;
+        }
+
+        long[] keys = children.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int[] edgeStart = new int[stateCount + 1];
+        byte[] labels = new byte[keys.length];
+        int[] targets = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            edgeStart[(int) (keys[i] >>> 8) + 1]++;
+            labels[i] = (byte) keys[i];
+            targets[i] = children.get(keys[i]);
+        }
+        for (int state = 0; state < stateCount; state++) {
+            edgeStart[state + 1] += edgeStart[state];
+        }
+        return new AhoCorasick(edgeStart, labels, targets, Arrays.copyOf(terminal, stateCount), maxLength);
+    }
+
+    /**
+     * Returns the index just past the earliest-ending literal occurrence in
+     * {@code [from, to)} of the buffer, or -1.
+     */
+    int matchEnd(ByteBuffer utf8, int from, int to) {
+        if (terminal[ROOT]) {
+            return from;
+        }
+        int state = ROOT;
+        for (int i = from; i < to; i++) {
+            state = step(state, utf8.get(i) & 0xFF);
+            if (terminal[state]) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index just past the earliest-ending literal occurrence in
+     * the text from {@code from} on, or -1. Chars are fed to the automaton as
+     * their UTF-8 bytes.
+     */
+    int matchEnd(CharSequence text, int from) {
+        if (terminal[ROOT]) {
+            return from;
+        }
+        int state = ROOT;
+        for (int i = from, length = text.length(); i < length; i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                state = step(state, ch);
+            } else if (ch < 0x800) {
+                state = step(state, 0xC0 | (ch >> 6));
+                state = step(state, 0x80 | (ch & 0x3F));
+            } else {
+                state = step(state, 0xE0 | (ch >> 12));
+                state = step(state, 0x80 | ((ch >> 6) & 0x3F));
+                state = step(state, 0x80 | (ch & 0x3F));
+            }
+            if (terminal[state]) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the leftmost-longest literal occurrence in {@code [from, to)}.
+     * The earliest-ending occurrence bounds where the leftmost one can start,
+     * so only the few starts within the longest literal's reach of it are
+     * walked through the trie.
+     */
+    boolean find(ByteBuffer utf8, int from, int to, Match match) {
+        int earliestEnd = matchEnd(utf8, from, to);
+        if (earliestEnd < 0) {
+            return false;
+        }
+        for (int start = Math.max(from, earliestEnd - maxLength); start <= earliestEnd; start++) {
+            int state = ROOT;
+            int end = literalEnd[ROOT] ? start : -1;
+            for (int i = start; i < to && (state = child(state, utf8.get(i) & 0xFF)) != NONE; i++) {
+                if (literalEnd[state]) {
+                    end = i + 1;
+                }
+            }
+            if (end >= 0) {
+                match.set(start, end);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean find(CharSequence text, int from, Match match) {
+        int earliestEnd = matchEnd(text, from);
+        if (earliestEnd < 0) {
+            return false;
+        }
+        for (int start = Math.max(from, earliestEnd - maxLength); start <= earliestEnd; start++) {
+            int state = ROOT;
+            int end = literalEnd[ROOT] ? start : -1;
+            for (int i = start; i < text.length() && (state = walk(state, text.charAt(i))) != NONE; i++) {
+                if (literalEnd[state]) {
+                    end = i + 1;
+                }
+            }
+            if (end >= 0) {
+                match.set(start, end);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int stateCount() {
+        return terminal.length;
+    }
+
+    private int step(int state, int b) {
+        while (state != ROOT) {
+            int next = child(state, b);
+            if (next != NONE) {
+                return next;
+            }
+            state = failure[state];
+        }
+        return rootNext[b];
+    }
+
+    // Follows trie edges only, over the UTF-8 bytes of ch; returns NONE when the trie has no such path.
+    private int walk(int state, char ch) {
+        if (ch < 0x80) {
+            return child(state, ch);
+        }
+        if (ch < 0x800) {
+            state = child(state, 0xC0 | (ch >> 6));
+        } else {
+            state = child(state, 0xE0 | (ch >> 12));
+            state = state == NONE ? NONE : child(state, 0x80 | ((ch >> 6) & 0x3F));
+        }
+        return state == NONE ? NONE : child(state, 0x80 | (ch & 0x3F));
+    }
+
+    private int child(int state, int b) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int label = labels[mid] & 0xFF;
+            if (label < b) {
+                low = mid + 1;
+            } else if (label > b) {
+                high = mid - 1;
+            } else {
+                return targets[mid];
+            }
+        }
+        return NONE;
+    }
+
+    // Breadth-first, so every state's failure target is final before its children need it.
+    private void computeFailureLinks() {
+        int[] queue = new int[terminal.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            int state = queue[head++];
+            for (int edge = edgeStart[state]; edge < edgeStart[state + 1]; edge++) {
+                int target = targets[edge];
+                failure[target] = state == ROOT ? ROOT : step(failure[state], labels[edge] & 0xFF);
+                terminal[target] |= terminal[failure[target]];
+                queue[tail++] = target;
+            }
+        }
+    }
+
+}
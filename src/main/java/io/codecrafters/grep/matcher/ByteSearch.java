@@ -0,0 +1,49 @@
+package io.codecrafters.grep.matcher;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Word-at-a-time byte search. Eight bytes are compared per step with a
+ * carry-free zero-byte test, which keeps newline scanning close to memchr
+ * speed on both heap and mapped buffers.
+ */
+public final class ByteSearch {
+
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long ONES = 0x0101010101010101L;
+
+    private ByteSearch() {
+    }
+
+    /**
+     * Returns the absolute index of the first {@code target} byte in
+     * {@code [from, to)} of {@code buffer}, or -1. The buffer's position and
+     * limit are ignored, but {@code to} must not exceed its limit.
+     */
+    public static int indexOf(ByteBuffer buffer, int from, int to, byte target) {
+        long pattern = (target & 0xFFL) * ONES;
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long zeros = zeroBytes(buffer.getLong(i) ^ pattern);
+            if (zeros != 0) {
+                int bit = bigEndian ? Long.numberOfLeadingZeros(zeros) : Long.numberOfTrailingZeros(zeros);
+                return i + (bit >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // High bit of each byte is set exactly when that byte is zero; no borrow crosses byte lanes.
+    private static long zeroBytes(long word) {
+        long sum = (word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS;
+        return ~(sum | word | LOW_SEVEN_BITS);
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.codecrafters.grep.matcher;
+
+/**
+ * Reusable {@link CharSequence} over a region of a char array, so callers
+ * holding text in their own buffers can be matched without copying it.
+ * Only {@link #subSequence} and {@link #toString} allocate.
+ */
+final class CharArrayView implements CharSequence {
+
+    private char[] array;
+    private int offset;
+    private int length;
+
+    CharArrayView reset(char[] array, int offset, int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return array[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(array, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(array, offset, length);
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.codecrafters.grep.matcher;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event counts shared by every {@link LazyDfa} of one pattern. Each thread
+ * has its own DFA, so the counters are adders that stay cheap to bump from
+ * many threads and are only summed when someone asks for them.
+ */
+final class DfaCounters {
+
+    private final LongAdder statesBuilt = new LongAdder();
+    private final LongAdder cacheResets = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    void stateBuilt() {
+        statesBuilt.increment();
+    }
+
+    void cacheReset() {
+        cacheResets.increment();
+    }
+
+    void fallback() {
+        fallbacks.increment();
+    }
+
+    RegexPattern.DfaStats stats() {
+        return new RegexPattern.DfaStats(statesBuilt.sum(), cacheResets.sum(), fallbacks.sum());
+    }
+
+}
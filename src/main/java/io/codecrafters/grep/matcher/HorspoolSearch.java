@@ -0,0 +1,135 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.patterns.LiteralCharacter;
+import io.codecrafters.grep.patterns.PatternElement;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boyer-Moore-Horspool search for patterns made only of literal chars. The
+ * literal is kept both as chars and as its UTF-8 bytes, each with a
+ * 256-entry shift table, so decoded text and raw lines skip ahead by up to
+ * the literal's length per step. Chars above Latin-1 share table slots by
+ * their low byte, keeping the smallest shift, which only ever shortens a skip.
+ */
+final class HorspoolSearch {
+
+    private static final int TABLE_SIZE = 256;
+
+    private final String literal;
+    private final char[] chars;
+    private final int[] charShifts;
+    private final byte[] bytes;
+    private final int[] byteShifts;
+
+    private HorspoolSearch(String literal) {
+        this.literal = literal;
+        this.chars = literal.toCharArray();
+        this.bytes = literal.getBytes(StandardCharsets.UTF_8);
+        this.charShifts = new int[TABLE_SIZE];
+        this.byteShifts = new int[TABLE_SIZE];
+
+        Arrays.fill(charShifts, chars.length);
+        for (int i = 0; i < chars.length - 1; i++) {
+            charShifts[chars[i] & 0xFF] = chars.length - 1 - i;
+        }
+        Arrays.fill(byteShifts, bytes.length);
+        for (int i = 0; i < bytes.length - 1; i++) {
+            byteShifts[bytes[i] & 0xFF] = bytes.length - 1 - i;
+        }
+    }
+
+    /**
+     * Returns a searcher when every element is a literal char and there are
+     * at least two of them; single chars are cheaper to find with indexOf.
+     */
+    static HorspoolSearch forElements(List<PatternElement> elements) {
+        if (elements.size() < 2) {
+            return null;
+        }
+        String literal = literalOf(elements);
+        return literal == null ? null : new HorspoolSearch(literal);
+    }
+
+    // Returns the text the elements spell when all of them are literal chars, otherwise null.
+    static String literalOf(List<PatternElement> elements) {
+        StringBuilder literal = new StringBuilder(elements.size());
+        for (PatternElement element : elements) {
+            if (!(element instanceof LiteralCharacter character)) {
+                return null;
+            }
+            literal.append(character.character());
+        }
+        return literal.toString();
+    }
+
+    String literal() {
+        return literal;
+    }
+
+    int charLength() {
+        return chars.length;
+    }
+
+    int byteLength() {
+        return bytes.length;
+    }
+
+    int indexOf(CharSequence text) {
+        return indexOf(text, 0);
+    }
+
+    int indexOf(CharSequence text, int from) {
+        // String.indexOf is a vectorized intrinsic; other sequences get the skip loop.
+        if (text instanceof String string) {
+            return string.indexOf(literal, from);
+        }
+        int last = chars.length - 1;
+        int end = text.length() - last;
+        int i = from;
+        while (i < end) {
+            char tail = text.charAt(i + last);
+            if (tail == chars[last] && regionMatches(text, i)) {
+                return i;
+            }
+            i += charShifts[tail & 0xFF];
+        }
+        return -1;
+    }
+
+    int indexOf(ByteBuffer utf8, int from, int to) {
+        int last = bytes.length - 1;
+        int end = to - last;
+        int i = from;
+        while (i < end) {
+            byte tail = utf8.get(i + last);
+            if (tail == bytes[last] && regionMatches(utf8, i)) {
+                return i;
+            }
+            i += byteShifts[tail & 0xFF];
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(CharSequence text, int start) {
+        for (int j = 0; j < chars.length - 1; j++) {
+            if (text.charAt(start + j) != chars[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionMatches(ByteBuffer utf8, int start) {
+        for (int j = 0; j < bytes.length - 1; j++) {
+            if (utf8.get(start + j) != bytes[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,551 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.patterns.LiteralCharacter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unanchored DFA built on demand from an {@link Nfa}. Each DFA state is the
+ * epsilon closure of a set of NFA states; transitions are computed the first
+ * time they are taken and cached, so a scan is linear in the input length.
+ * Latin-1 chars are cached by the NFA's byte class, so a state's transition
+ * table has one slot per class rather than 256. Transitions on wider chars
+ * go to one open-addressed table keyed by state and char, which is emptied
+ * when it is half full, so text in other scripts is matched from the cache
+ * as well without a table per state.
+ *
+ * <p>Cached states are charged against a memory budget by an estimate of
+ * their size. When the next state would exceed it the cache is flushed and
+ * rebuilt from the current position. If it flushes again before
+ * {@value #MIN_CHARS_PER_STATE} chars have been scanned for every state the
+ * previous cache held, counting across inputs since lines are usually
+ * shorter than that, the cache is thrashing. The rest of the input and every
+ * input in the next {@value #MIN_FALLBACK_CHARS} chars are then left to the
+ * {@link PikeVm}, which needs no memory beyond the NFA's size. Each time the
+ * DFA thrashes again after resuming, that window doubles; a flush that is
+ * not thrashing sets it back.
+ *
+ * <p>Anchors are resolved while building closures: {@code ^} is followed only
+ * in the closure of the line's initial state, and {@code $} only when asking
+ * whether a state accepts at the end of the line.
+ */
+final class LazyDfa {
+
+    static final long DEFAULT_MEMORY_BUDGET = 2L << 20;
+    static final int MIN_CHARS_PER_STATE = 10;
+    static final long MIN_FALLBACK_CHARS = 1 << 16;
+    static final long MAX_FALLBACK_CHARS = 1L << 30;
+
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    static final int NEEDS_DECODING = -1;
+
+    private static final int CACHED_ALPHABET = 256;
+    // Rough per-state cost with compressed references: the state and its map entry, its
+    // transition table, and its NFA state set.
+    private static final int STATE_OVERHEAD_BYTES = 96;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int WIDE_CACHE_SLOTS = 1 << 12;
+
+    // Stands in for the target of a transition that flushed the cache. It is
+    // accepting so that the scan loops leave their fast path to handle it.
+    private static final DfaState FLUSHED = new DfaState(new int[0], false, true, true, false, 0);
+
+    private final Nfa nfa;
+    private final long memoryBudget;
+    private final DfaCounters counters;
+    private final Map<DfaState, DfaState> states = new HashMap<>();
+    private long cachedBytes;
+    private final int[] stack;
+    private final boolean[] onStack;
+    // Scratch space for building closures, reused so that only new states allocate.
+    private final int[] moved;
+    private final int[] members;
+    private final int[] visited;
+    // Allocated on the first char beyond Latin-1, which most inputs never have.
+    private DfaState[] wideSources;
+    private char[] wideChars;
+    private DfaState[] wideTargets;
+    private int wideCount;
+    private final int prefixChar;
+    private final byte prefixByte;
+    // Closure used to restart the search at every position after the first.
+    private DfaState startState;
+    // Closure at the start of the line, where ^ holds; the same as startState without ^.
+    private DfaState initialState;
+    // The restart state consumes nothing and accepts nothing, as for ^-anchored patterns.
+    private final boolean deadStart;
+
+    private boolean flushed;
+    private DfaState flushedTarget;
+    private int statesAtFlush;
+    // Chars scanned by earlier inputs, so flushes in different inputs can be compared.
+    private long scanned;
+    // Where the cache last flushed, or -1 if it has not since the DFA last resumed.
+    private long lastFlush = -1;
+    private long fallbackUntil;
+    private long fallbackChars = MIN_FALLBACK_CHARS;
+    private PikeVm fallback;
+    private Match fallbackMatch;
+
+    LazyDfa(Nfa nfa) {
+        this(nfa, DEFAULT_MEMORY_BUDGET, new DfaCounters());
+    }
+
+    LazyDfa(Nfa nfa, long memoryBudget) {
+        this(nfa, memoryBudget, new DfaCounters());
+    }
+
+    LazyDfa(Nfa nfa, long memoryBudget, DfaCounters counters) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("DFA memory budget must be positive: " + memoryBudget);
+        }
+        this.nfa = nfa;
+        this.memoryBudget = memoryBudget;
+        this.counters = counters;
+        this.stack = new int[nfa.size()];
+        this.onStack = new boolean[nfa.size()];
+        this.moved = new int[nfa.size()];
+        this.members = new int[nfa.size()];
+        this.visited = new int[nfa.size()];
+        this.startState = intern(closure(new int[0], 0, false));
+        this.initialState = hasBegin(nfa) ? intern(closure(new int[0], 0, true)) : startState;
+        this.deadStart = !startState.accepting && !startState.consumes;
+        this.prefixChar = startState.accepting ? -1 : prefixChar(nfa, startState.nfaStates);
+        this.prefixByte = prefixChar >= 0 && prefixChar < 0x80 ? (byte) prefixChar : -1;
+    }
+
+    // When every way out of the start state begins with one literal char, the
+    // start state loops on everything else and the scan can jump between
+    // occurrences of that char.
+    private static int prefixChar(Nfa nfa, int[] startStates) {
+        int prefix = -1;
+        for (int nfaState : startStates) {
+            if (nfa.opcode(nfaState) != Nfa.CHAR) {
+                continue;
+            }
+            if (!(nfa.element(nfaState) instanceof LiteralCharacter literal)
+                    || (prefix >= 0 && prefix != literal.character())) {
+                return -1;
+            }
+            prefix = literal.character();
+        }
+        return prefix;
+    }
+
+    private static boolean hasBegin(Nfa nfa) {
+        for (int state = 0; state < nfa.size(); state++) {
+            if (nfa.opcode(state) == Nfa.BEGIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean matches(CharSequence text) {
+        boolean matched = fallingBack() ? fallback().find(text, 0, 0, text.length(), fallbackMatch) : scan(text);
+        scanned += text.length();
+        return matched;
+    }
+
+    private boolean scan(CharSequence text) {
+        DfaState state = initialState;
+        if (state.accepting) {
+            return true;
+        }
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (state == startState) {
+                if (deadStart) {
+                    return state.acceptingAtEnd;
+                }
+                if (prefixChar >= 0) {
+                    i = indexOf(text, (char) prefixChar, i);
+                    if (i < 0) {
+                        return state.acceptingAtEnd;
+                    }
+                }
+            }
+            state = transition(state, text.charAt(i));
+            if (state.accepting) {
+                if (state != FLUSHED) {
+                    return true;
+                }
+                if (thrashing(scanned + i)) {
+                    return fallback().find(text, 0, 0, length, fallbackMatch);
+                }
+                state = flushedTarget;
+                if (state.accepting) {
+                    return true;
+                }
+            }
+        }
+        return state.acceptingAtEnd;
+    }
+
+    /**
+     * Matches UTF-8 bytes without decoding them. ASCII bytes are the chars
+     * they encode; any other byte belongs to a non-ASCII char, which an
+     * ASCII-only pattern can never consume, so it simply restarts the search.
+     * Other patterns report {@link #NEEDS_DECODING} on the first such byte.
+     */
+    int matches(ByteBuffer utf8, int from, int to) {
+        if (fallingBack()) {
+            scanned += to - from;
+            return fallback().find(utf8, from, from, to, fallbackMatch) ? MATCH : NO_MATCH;
+        }
+        int result = scan(utf8, from, to);
+        // Inputs that need decoding are scanned again as chars, and counted then.
+        if (result != NEEDS_DECODING) {
+            scanned += to - from;
+        }
+        return result;
+    }
+
+    private int scan(ByteBuffer utf8, int from, int to) {
+        DfaState state = initialState;
+        if (state.accepting) {
+            return MATCH;
+        }
+        boolean asciiOnly = nfa.asciiOnly();
+        for (int i = from; i < to; i++) {
+            if (state == startState) {
+                if (deadStart) {
+                    return state.acceptingAtEnd ? MATCH : NO_MATCH;
+                }
+                if (prefixByte >= 0) {
+                    i = ByteSearch.indexOf(utf8, i, to, prefixByte);
+                    if (i < 0) {
+                        return state.acceptingAtEnd ? MATCH : NO_MATCH;
+                    }
+                }
+            }
+            byte b = utf8.get(i);
+            if (b >= 0) {
+                state = transition(state, (char) b);
+            } else if (asciiOnly) {
+                state = startState;
+            } else {
+                return NEEDS_DECODING;
+            }
+            if (state.accepting) {
+                if (state != FLUSHED) {
+                    return MATCH;
+                }
+                if (thrashing(scanned + i - from)) {
+                    return fallback().find(utf8, from, from, to, fallbackMatch) ? MATCH : NO_MATCH;
+                }
+                state = flushedTarget;
+                if (state.accepting) {
+                    return MATCH;
+                }
+            }
+        }
+        return state.acceptingAtEnd ? MATCH : NO_MATCH;
+    }
+
+    // Called after a flush at position; reports whether the flushed cache was barely used.
+    private boolean thrashing(long position) {
+        if (lastFlush < 0) {
+            lastFlush = position;
+            return false;
+        }
+        if (position - lastFlush >= (long) MIN_CHARS_PER_STATE * statesAtFlush) {
+            lastFlush = position;
+            fallbackChars = MIN_FALLBACK_CHARS;
+            return false;
+        }
+        counters.fallback();
+        fallbackUntil = position + fallbackChars;
+        fallbackChars = Math.min(2 * fallbackChars, MAX_FALLBACK_CHARS);
+        // Flushes are counted afresh once the DFA resumes.
+        lastFlush = -1;
+        return true;
+    }
+
+    // Whether inputs still go to the NFA simulation after the cache last thrashed.
+    private boolean fallingBack() {
+        if (scanned < fallbackUntil) {
+            counters.fallback();
+            return true;
+        }
+        return false;
+    }
+
+    private PikeVm fallback() {
+        if (fallback == null) {
+            fallback = new PikeVm(nfa);
+            fallbackMatch = new Match();
+        }
+        return fallback;
+    }
+
+    int prefixChar() {
+        return prefixChar;
+    }
+
+    int cachedStates() {
+        return states.size();
+    }
+
+    long cachedBytes() {
+        return cachedBytes;
+    }
+
+    static long stateBytes(int nfaStateCount, int byteClassCount) {
+        return STATE_OVERHEAD_BYTES + 2 * ARRAY_HEADER_BYTES + 4L * byteClassCount + 4L * nfaStateCount;
+    }
+
+    private static int indexOf(CharSequence text, char ch, int from) {
+        if (text instanceof String string) {
+            return string.indexOf(ch, from);
+        }
+        for (int i = from, length = text.length(); i < length; i++) {
+            if (text.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private DfaState transition(DfaState state, char ch) {
+        if (ch < CACHED_ALPHABET) {
+            int byteClass = nfa.byteClass(ch);
+            DfaState target = state.next[byteClass];
+            if (target == null) {
+                target = computeTransition(state, ch);
+                // A flush while computing drops every cached state, including the source.
+                if (flushed) {
+                    return flushedTo(target);
+                }
+                state.next[byteClass] = target;
+            }
+            return target;
+        }
+        if (wideSources == null) {
+            wideSources = new DfaState[WIDE_CACHE_SLOTS];
+            wideChars = new char[WIDE_CACHE_SLOTS];
+            wideTargets = new DfaState[WIDE_CACHE_SLOTS];
+        }
+        int slot = wideSlot(state, ch);
+        for (DfaState source; (source = wideSources[slot]) != null; slot = (slot + 1) & (WIDE_CACHE_SLOTS - 1)) {
+            if (source == state && wideChars[slot] == ch) {
+                return wideTargets[slot];
+            }
+        }
+        DfaState target = computeTransition(state, ch);
+        if (flushed) {
+            return flushedTo(target);
+        }
+        if (wideCount == WIDE_CACHE_SLOTS / 2) {
+            clearWideCache();
+            slot = wideSlot(state, ch);
+        }
+        wideSources[slot] = state;
+        wideChars[slot] = ch;
+        wideTargets[slot] = target;
+        wideCount++;
+        return target;
+    }
+
+    private static int wideSlot(DfaState state, char ch) {
+        int hash = (state.hash ^ ch) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (WIDE_CACHE_SLOTS - 1);
+    }
+
+    private void clearWideCache() {
+        if (wideSources == null) {
+            return;
+        }
+        Arrays.fill(wideSources, null);
+        Arrays.fill(wideTargets, null);
+        wideCount = 0;
+    }
+
+    private DfaState flushedTo(DfaState target) {
+        flushed = false;
+        flushedTarget = target;
+        return FLUSHED;
+    }
+
+    private DfaState computeTransition(DfaState state, char ch) {
+        int count = 0;
+        for (int nfaState : state.nfaStates) {
+            if (nfa.opcode(nfaState) == Nfa.CHAR && nfa.matches(nfaState, ch)) {
+                moved[count++] = nfa.next(nfaState);
+            }
+        }
+        return intern(closure(moved, count, false));
+    }
+
+    private DfaState intern(DfaState candidate) {
+        DfaState existing = states.get(candidate);
+        if (existing != null) {
+            return existing;
+        }
+        long bytes = stateBytes(candidate.nfaStates.length, candidate.next.length);
+        // Nothing is flushed while the constructor builds the start states.
+        if (cachedBytes + bytes > memoryBudget && initialState != null) {
+            statesAtFlush = states.size();
+            states.clear();
+            clearWideCache();
+            cachedBytes = 0;
+            flushed = true;
+            counters.cacheReset();
+            // The scan loops compare against these two by identity, so they survive a flush.
+            DfaState flushedStart = startState;
+            startState = retain(startState);
+            initialState = initialState == flushedStart ? startState : retain(initialState);
+            existing = states.get(candidate);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        // A state that exceeds the budget on its own is still cached, so a scan always makes progress.
+        states.put(candidate, candidate);
+        cachedBytes += bytes;
+        counters.stateBuilt();
+        return candidate;
+    }
+
+    private DfaState retain(DfaState state) {
+        if (state == null) {
+            return null;
+        }
+        DfaState copy = state.copy();
+        states.put(copy, copy);
+        cachedBytes += stateBytes(copy.nfaStates.length, copy.next.length);
+        return copy;
+    }
+
+    private DfaState closure(int[] seeds, int seedCount, boolean atStart) {
+        int top = 0;
+        int size = 0;
+        boolean accepting = false;
+        boolean consumes = false;
+
+        // Every position may begin a new match, so the start state is always live.
+        stack[top++] = nfa.start();
+        onStack[nfa.start()] = true;
+        for (int i = 0; i < seedCount; i++) {
+            int seed = seeds[i];
+            if (!onStack[seed]) {
+                onStack[seed] = true;
+                stack[top++] = seed;
+            }
+        }
+
+        while (top > 0) {
+            int nfaState = stack[--top];
+            members[size++] = nfaState;
+            switch (nfa.opcode(nfaState)) {
+                case Nfa.CHAR -> consumes = true;
+                case Nfa.SPLIT -> {
+                    top = push(nfa.next(nfaState), top);
+                    top = push(nfa.alternate(nfaState), top);
+                }
+                case Nfa.SAVE -> top = push(nfa.next(nfaState), top);
+                case Nfa.BEGIN -> {
+                    if (atStart) {
+                        top = push(nfa.next(nfaState), top);
+                    }
+                }
+                case Nfa.MATCH -> accepting = true;
+                default -> {
+                }
+            }
+        }
+
+        int[] sorted = Arrays.copyOf(members, size);
+        Arrays.sort(sorted);
+        for (int nfaState : sorted) {
+            onStack[nfaState] = false;
+        }
+        boolean acceptingAtEnd = accepting || reachesMatchAtEnd(sorted, atStart);
+        return new DfaState(sorted, atStart, accepting, acceptingAtEnd, consumes, nfa.byteClassCount());
+    }
+
+    // Whether a MATCH is reachable from the closure once $ holds, i.e. at the end of the line.
+    private boolean reachesMatchAtEnd(int[] members, boolean atStart) {
+        int top = 0;
+        int visitedCount = 0;
+        boolean found = false;
+        for (int nfaState : members) {
+            if (nfa.opcode(nfaState) == Nfa.END) {
+                top = push(nfa.next(nfaState), top);
+            }
+        }
+        while (top > 0) {
+            int nfaState = stack[--top];
+            visited[visitedCount++] = nfaState;
+            switch (nfa.opcode(nfaState)) {
+                case Nfa.SPLIT -> {
+                    top = push(nfa.next(nfaState), top);
+                    top = push(nfa.alternate(nfaState), top);
+                }
+                case Nfa.SAVE, Nfa.END -> top = push(nfa.next(nfaState), top);
+                case Nfa.BEGIN -> {
+                    if (atStart) {
+                        top = push(nfa.next(nfaState), top);
+                    }
+                }
+                case Nfa.MATCH -> found = true;
+                default -> {
+                }
+            }
+        }
+        for (int i = 0; i < visitedCount; i++) {
+            onStack[visited[i]] = false;
+        }
+        return found;
+    }
+
+    private int push(int nfaState, int top) {
+        if (!onStack[nfaState]) {
+            onStack[nfaState] = true;
+            stack[top++] = nfaState;
+        }
+        return top;
+    }
+
+    private static final class DfaState {
+
+        private final int[] nfaStates;
+        private final boolean atStart;
+        private final boolean accepting;
+        private final boolean acceptingAtEnd;
+        private final boolean consumes;
+        private final int hash;
+        private final DfaState[] next;
+
+        DfaState(int[] nfaStates, boolean atStart, boolean accepting, boolean acceptingAtEnd, boolean consumes,
+                 int byteClassCount) {
+            this.nfaStates = nfaStates;
+            this.atStart = atStart;
+            this.accepting = accepting;
+            this.acceptingAtEnd = acceptingAtEnd;
+            this.consumes = consumes;
+            this.next = new DfaState[byteClassCount];
+            this.hash = Arrays.hashCode(nfaStates) * 31 + Boolean.hashCode(atStart);
+        }
+
+        DfaState copy() {
+            return new DfaState(nfaStates, atStart, accepting, acceptingAtEnd, consumes, next.length);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof DfaState state
+                    && atStart == state.atStart
+                    && Arrays.equals(nfaStates, state.nfaStates);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.codecrafters.grep.matcher;
+
+import java.util.Objects;
+
+/**
+ * Reusable holder for the bounds of one match, filled in by the
+ * {@code find} methods so that finding matches allocates nothing. Offsets
+ * are chars for char input and absolute buffer indices for UTF-8 input.
+ * To continue past a match, search again from {@link #end()}, or from one
+ * char further when the match is empty. Groups are numbered from 1 in the
+ * order of their opening parenthesis; group 0 is the whole match.
+ */
+public final class Match {
+
+    private int start = -1;
+    private int end = -1;
+    private int groupCount;
+    private int[] groups = new int[0];
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    public boolean isEmpty() {
+        return start == end;
+    }
+
+    public int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Returns where the given group last matched, or -1 when it took no part
+     * in the match.
+     */
+    public int start(int group) {
+        Objects.checkIndex(group, groupCount + 1);
+        return group == 0 ? start : groups[2 * group];
+    }
+
+    public int end(int group) {
+        Objects.checkIndex(group, groupCount + 1);
+        return group == 0 ? end : groups[2 * group + 1];
+    }
+
+    void set(int start, int end) {
+        this.start = start;
+        this.end = end;
+        this.groupCount = 0;
+    }
+
+    // Copies the capture slots of groups 1 to groupCount; slots 0 and 1 are unused.
+    void setGroups(int[] slots, int groupCount) {
+        int length = 2 * (groupCount + 1);
+        if (groups.length < length) {
+            groups = new int[length];
+        }
+        System.arraycopy(slots, 0, groups, 0, length);
+        this.groupCount = groupCount;
+    }
+
+}
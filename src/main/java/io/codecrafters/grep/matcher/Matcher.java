@@ -0,0 +1,153 @@
+package io.codecrafters.grep.matcher;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Mutable matching state for one {@link RegexPattern}: the lazily-built DFA
+ * cache and a decoder for lines that cannot be matched as raw bytes. Pure
+ * literal patterns bypass the DFA and use a skip-table search instead, and
+ * sets of literals share one Aho-Corasick automaton. Other patterns may carry
+ * a {@link Prefilter} that rejects lines lacking a required literal. A
+ * matcher is not thread-safe; give each worker its own so its DFA stays warm
+ * across the inputs that worker handles. Once the DFA has seen the inputs'
+ * characters, matching allocates nothing per call.
+ */
+public final class Matcher {
+
+    private final Nfa nfa;
+    private final LazyDfa dfa;
+    private final HorspoolSearch literalSearch;
+    private final AhoCorasick literalSet;
+    private final Prefilter prefilter;
+    private final CharArrayView arrayView = new CharArrayView();
+    private Utf8Decoder decoder;
+    private PikeVm pikeVm;
+
+    Matcher(Nfa nfa, HorspoolSearch literalSearch, AhoCorasick literalSet, Prefilter prefilter,
+            long dfaMemoryBudget, DfaCounters dfaCounters) {
+        this.nfa = nfa;
+        this.dfa = literalSearch == null && literalSet == null
+                ? new LazyDfa(nfa, dfaMemoryBudget, dfaCounters)
+                : null;
+        this.literalSearch = literalSearch;
+        this.literalSet = literalSet;
+        this.prefilter = prefilter;
+    }
+
+    public boolean matches(CharSequence text) {
+        if (literalSearch != null) {
+            return literalSearch.indexOf(text) >= 0;
+        }
+        if (literalSet != null) {
+            return literalSet.matchEnd(text, 0) >= 0;
+        }
+        if (prefilter != null && !prefilter.mayMatch(text)) {
+            return false;
+        }
+        return dfa.matches(text);
+    }
+
+    /**
+     * Matches the chars in {@code [offset, offset + length)} of the array in
+     * place, through a view this matcher reuses for every call.
+     */
+    public boolean matches(char[] text, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, text.length);
+        return matches(arrayView.reset(text, offset, length));
+    }
+
+    /**
+     * Matches a UTF-8 encoded line held in {@code [offset, offset + length)}
+     * of the buffer. Lines are matched as raw bytes and only decoded when they
+     * contain non-ASCII bytes that the pattern could match.
+     */
+    public boolean matches(ByteBuffer utf8, int offset, int length) {
+        if (literalSearch != null) {
+            return literalSearch.indexOf(utf8, offset, offset + length) >= 0;
+        }
+        if (literalSet != null) {
+            return literalSet.matchEnd(utf8, offset, offset + length) >= 0;
+        }
+        if (prefilter != null && !prefilter.mayMatch(utf8, offset, offset + length)) {
+            return false;
+        }
+        int result = dfa.matches(utf8, offset, offset + length);
+        if (result == LazyDfa.NEEDS_DECODING) {
+            if (decoder == null) {
+                decoder = new Utf8Decoder();
+            }
+            return dfa.matches(decoder.decode(utf8, offset, length));
+        }
+        return result == LazyDfa.MATCH;
+    }
+
+    /**
+     * Finds the leftmost-longest match starting at or after {@code from} and
+     * stores its char offsets in {@code match}.
+     *
+     * @return whether a match was found
+     */
+    public boolean find(CharSequence text, int from, Match match) {
+        Objects.checkIndex(from, text.length() + 1);
+        if (literalSearch != null) {
+            int start = literalSearch.indexOf(text, from);
+            if (start < 0) {
+                return false;
+            }
+            match.set(start, start + literalSearch.charLength());
+            return true;
+        }
+        if (literalSet != null) {
+            return literalSet.find(text, from, match);
+        }
+        return pikeVm().find(text, 0, from, text.length(), match);
+    }
+
+    /**
+     * Finds the leftmost-longest match in {@code [from, to)} of a UTF-8
+     * buffer and stores its absolute byte offsets in {@code match}.
+     *
+     * @return whether a match was found
+     */
+    public boolean find(ByteBuffer utf8, int from, int to, Match match) {
+        return find(utf8, from, from, to, match);
+    }
+
+    /**
+     * Finds the leftmost-longest match starting at or after {@code from} in
+     * the UTF-8 line {@code [lineStart, to)}. Anchors hold at the line's
+     * bounds, so a later call that resumes after an earlier match does not
+     * see {@code from} as the start of the line.
+     *
+     * @return whether a match was found
+     */
+    public boolean find(ByteBuffer utf8, int lineStart, int from, int to, Match match) {
+        Objects.checkFromToIndex(lineStart, from, to);
+        Objects.checkFromToIndex(from, to, utf8.limit());
+        if (literalSearch != null) {
+            int start = literalSearch.indexOf(utf8, from, to);
+            if (start < 0) {
+                return false;
+            }
+            match.set(start, start + literalSearch.byteLength());
+            return true;
+        }
+        if (literalSet != null) {
+            return literalSet.find(utf8, from, to, match);
+        }
+        // Treating from as a line start only admits more matches, so a rejection here is final.
+        if (dfa.matches(utf8, from, to) == LazyDfa.NO_MATCH) {
+            return false;
+        }
+        return pikeVm().find(utf8, lineStart, from, to, match);
+    }
+
+    private PikeVm pikeVm() {
+        if (pikeVm == null) {
+            pikeVm = new PikeVm(nfa);
+        }
+        return pikeVm;
+    }
+
+}
@@ -0,0 +1,259 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.Node;
+import io.codecrafters.grep.parser.ParseException;
+import io.codecrafters.grep.patterns.PatternElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thompson NFA compiled from a pattern's syntax tree. States are stored in
+ * parallel arrays so closures can be computed without touching objects.
+ * Besides char-consuming CHAR states there are SPLIT states with two
+ * successors, BEGIN and END assertions for the anchors, and SAVE states that
+ * record a group boundary into a capture slot.
+ *
+ * <p>Every CHAR state's element is also flattened into a 256-bit table of the
+ * Latin-1 chars it accepts, so {@link #matches(int, char)} answers most chars
+ * with a bit test instead of a call through {@link PatternElement}, whose
+ * call site sees every element type and cannot be inlined. The same tables
+ * partition Latin-1 into byte classes: chars that every state treats alike
+ * share a class, so the DFA needs one transition per class, not per char.
+ */
+final class Nfa {
+
+    static final int CHAR = 0;
+    static final int SPLIT = 1;
+    static final int MATCH = 2;
+    static final int BEGIN = 3;
+    static final int END = 4;
+    static final int SAVE = 5;
+
+    private static final int LATIN1 = 256;
+    private static final int WORDS_PER_STATE = LATIN1 / Long.SIZE;
+
+    // Bounds the expansion of counted repetitions such as (a{1000}){1000}.
+    static final int MAX_STATES = 100_000;
+
+    private final int[] opcodes;
+    private final PatternElement[] elements;
+    private final int[] next;
+    private final int[] alternate;
+    private final int start;
+    private final int groupCount;
+    private final boolean asciiOnly;
+    private final long[] latin1Bits;
+    private final byte[] byteClasses;
+    private final int byteClassCount;
+
+    private Nfa(int[] opcodes, PatternElement[] elements, int[] next, int[] alternate, int start, int groupCount) {
+        this.opcodes = opcodes;
+        this.elements = elements;
+        this.next = next;
+        this.alternate = alternate;
+        this.start = start;
+        this.groupCount = groupCount;
+        this.asciiOnly = Arrays.stream(elements).allMatch(element -> element == null || element.isAsciiOnly());
+        this.latin1Bits = latin1Bits(opcodes, elements);
+        this.byteClasses = new byte[LATIN1];
+        this.byteClassCount = partition(opcodes, latin1Bits, byteClasses);
+    }
+
+    private static long[] latin1Bits(int[] opcodes, PatternElement[] elements) {
+        long[] bits = new long[opcodes.length * WORDS_PER_STATE];
+        for (int state = 0; state < opcodes.length; state++) {
+            if (opcodes[state] != CHAR) {
+                continue;
+            }
+            PatternElement element = elements[state];
+            for (char ch = 0; ch < LATIN1; ch++) {
+                if (element.match(ch)) {
+                    bits[state * WORDS_PER_STATE + (ch >>> 6)] |= 1L << ch;
+                }
+            }
+        }
+        return bits;
+    }
+
+    // Refines one class holding all of Latin-1 by each CHAR state's table; returns the class count.
+    private static int partition(int[] opcodes, long[] bits, byte[] classes) {
+        int count = 1;
+        int[] split = new int[2 * LATIN1];
+        for (int state = 0; state < opcodes.length && count < LATIN1; state++) {
+            if (opcodes[state] != CHAR) {
+                continue;
+            }
+            Arrays.fill(split, 0, 2 * count, -1);
+            int refined = 0;
+            for (int ch = 0; ch < LATIN1; ch++) {
+                int member = (int) (bits[state * WORDS_PER_STATE + (ch >>> 6)] >>> ch) & 1;
+                int key = 2 * (classes[ch] & 0xFF) + member;
+                if (split[key] < 0) {
+                    split[key] = refined++;
+                }
+                classes[ch] = (byte) split[key];
+            }
+            count = refined;
+        }
+        return count;
+    }
+
+    static Nfa compile(List<PatternElement> patternElements) {
+        return compile(Node.sequence(patternElements));
+    }
+
+    static Nfa compile(Node node) {
+        Builder builder = new Builder();
+        int match = builder.add(MATCH, null, -1, -1);
+        int start = builder.compile(node, match);
+        return builder.build(start);
+    }
+
+    int size() {
+        return opcodes.length;
+    }
+
+    int start() {
+        return start;
+    }
+
+    /**
+     * Whether every character-consuming state rejects all non-ASCII input,
+     * which lets UTF-8 bytes be matched without decoding them.
+     */
+    boolean asciiOnly() {
+        return asciiOnly;
+    }
+
+    int opcode(int state) {
+        return opcodes[state];
+    }
+
+    PatternElement element(int state) {
+        return elements[state];
+    }
+
+    /**
+     * Returns the byte class of a Latin-1 char, between 0 and
+     * {@link #byteClassCount()} - 1.
+     */
+    int byteClass(char ch) {
+        return byteClasses[ch] & 0xFF;
+    }
+
+    int byteClassCount() {
+        return byteClassCount;
+    }
+
+    /**
+     * Whether the CHAR state consumes ch; only chars above Latin-1 reach the
+     * state's element.
+     */
+    boolean matches(int state, char ch) {
+        if (ch < LATIN1) {
+            return (latin1Bits[state * WORDS_PER_STATE + (ch >>> 6)] & (1L << ch)) != 0;
+        }
+        return elements[state].match(ch);
+    }
+
+    int next(int state) {
+        return next[state];
+    }
+
+    int alternate(int state) {
+        return alternate[state];
+    }
+
+    /**
+     * Returns the capture slot a SAVE state writes: 2 * group for a group's
+     * start and 2 * group + 1 for its end.
+     */
+    int slot(int state) {
+        return alternate[state];
+    }
+
+    int groupCount() {
+        return groupCount;
+    }
+
+    private static final class Builder {
+
+        private final List<Integer> opcodes = new ArrayList<>();
+        private final List<PatternElement> elements = new ArrayList<>();
+        private final List<Integer> next = new ArrayList<>();
+        private final List<Integer> alternate = new ArrayList<>();
+        private int groupCount;
+
+        int add(int opcode, PatternElement element, int nextState, int alternateState) {
+            if (opcodes.size() >= MAX_STATES) {
+                throw new ParseException("Pattern needs more than " + MAX_STATES + " states");
+            }
+            opcodes.add(opcode);
+            elements.add(element);
+            next.add(nextState);
+            alternate.add(alternateState);
+            return opcodes.size() - 1;
+        }
+
+        // Compiles node so that it continues to state next; returns its entry state.
+        int compile(Node node, int nextState) {
+            return switch (node) {
+                case Node.Element element -> add(CHAR, element.element(), nextState, -1);
+                case Node.Concat concat -> {
+                    int entry = nextState;
+                    for (int i = concat.nodes().size() - 1; i >= 0; i--) {
+                        entry = compile(concat.nodes().get(i), entry);
+                    }
+                    yield entry;
+                }
+                case Node.Alternation alternation -> {
+                    List<Node> alternatives = alternation.alternatives();
+                    int entry = compile(alternatives.getLast(), nextState);
+                    for (int i = alternatives.size() - 2; i >= 0; i--) {
+                        entry = add(SPLIT, null, compile(alternatives.get(i), nextState), entry);
+                    }
+                    yield entry;
+                }
+                case Node.Repeat repeat -> compileRepeat(repeat, nextState);
+                case Node.Group group -> {
+                    groupCount = Math.max(groupCount, group.index());
+                    int close = add(SAVE, null, nextState, 2 * group.index() + 1);
+                    yield add(SAVE, null, compile(group.node(), close), 2 * group.index());
+                }
+                case Node.Anchor anchor -> add(anchor == Node.Anchor.BEGIN ? BEGIN : END, null, nextState, -1);
+            };
+        }
+
+        // Expands x{m,n} into m copies of x followed by n - m nested optional copies, or a loop when unbounded.
+        private int compileRepeat(Node.Repeat repeat, int nextState) {
+            int entry;
+            if (repeat.max() == Node.UNBOUNDED) {
+                int loop = add(SPLIT, null, -1, nextState);
+                next.set(loop, compile(repeat.node(), loop));
+                entry = loop;
+            } else {
+                entry = nextState;
+                for (int i = repeat.min(); i < repeat.max(); i++) {
+                    entry = add(SPLIT, null, compile(repeat.node(), entry), nextState);
+                }
+            }
+            for (int i = 0; i < repeat.min(); i++) {
+                entry = compile(repeat.node(), entry);
+            }
+            return entry;
+        }
+
+        Nfa build(int start) {
+            return new Nfa(
+                    opcodes.stream().mapToInt(Integer::intValue).toArray(),
+                    elements.toArray(PatternElement[]::new),
+                    next.stream().mapToInt(Integer::intValue).toArray(),
+                    alternate.stream().mapToInt(Integer::intValue).toArray(),
+                    start,
+                    groupCount);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.PatternFlag;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thread-safe, size-bounded cache of compiled patterns with least-recently
+ * used eviction. Compilation happens outside the lock, so a slow compile
+ * never blocks lookups of other patterns; if two threads miss on the same
+ * pattern at once, the first result stored wins. Patterns compiled with
+ * different flags are cached separately.
+ */
+public final class PatternCache {
+
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final int maxSize;
+    private final Map<Key, RegexPattern> patterns;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public PatternCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public PatternCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.patterns = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, RegexPattern> eldest) {
+                if (size() > PatternCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public RegexPattern get(String pattern) {
+        return get(pattern, Set.of());
+    }
+
+    public RegexPattern get(String pattern, Set<PatternFlag> flags) {
+        Key key = new Key(pattern, Set.copyOf(flags));
+        synchronized (this) {
+            RegexPattern cached = patterns.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        RegexPattern compiled = RegexPattern.compile(pattern, flags);
+        synchronized (this) {
+            RegexPattern raced = patterns.putIfAbsent(key, compiled);
+            return raced != null ? raced : compiled;
+        }
+    }
+
+    public synchronized void clear() {
+        patterns.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, patterns.size());
+    }
+
+    private record Key(String pattern, Set<PatternFlag> flags) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+package io.codecrafters.grep.matcher;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Thompson-style NFA simulation that tracks where each thread started, used
+ * to recover match bounds once the DFA has said a line matches. Threads are
+ * kept in order of their start, so the first to reach MATCH is leftmost;
+ * threads with that start keep running to find the longest match, as POSIX
+ * grep reports it. All lists are allocated once per NFA.
+ *
+ * <p>Patterns with groups also carry capture slots per thread; a SAVE state
+ * writes the current position into its slot and the old value is restored
+ * when the closure backtracks past it. Patterns without groups skip all of
+ * that, so their threads are just a state and a start.
+ */
+final class PikeVm {
+
+    private final Nfa nfa;
+    private final int[] marks;
+    private final int[] stack;
+    private int generation;
+    private int lineStart;
+    private int lineEnd;
+
+    // Capture slots: 2 * group and 2 * group + 1 hold a group's bounds; zero when there are no groups.
+    private final int slotCount;
+    private final int[] slots;
+    private final int[] savedSlots;
+    private final int[] bestSlots;
+    private int[] threadSlots;
+    private int[] nextThreadSlots;
+
+    private int[] states;
+    private int[] starts;
+    private int count;
+    private int[] nextStates;
+    private int[] nextStarts;
+
+    private int bestStart;
+    private int bestEnd;
+    private int decodedWidth;
+
+    PikeVm(Nfa nfa) {
+        this.nfa = nfa;
+        this.marks = new int[nfa.size()];
+        // Each SAVE state may also leave a restore entry on the stack.
+        this.stack = new int[2 * nfa.size()];
+        this.states = new int[nfa.size()];
+        this.starts = new int[nfa.size()];
+        this.nextStates = new int[nfa.size()];
+        this.nextStarts = new int[nfa.size()];
+        this.slotCount = nfa.groupCount() == 0 ? 0 : 2 * (nfa.groupCount() + 1);
+        this.slots = new int[slotCount];
+        this.savedSlots = slotCount == 0 ? null : new int[nfa.size()];
+        this.bestSlots = new int[slotCount];
+        this.threadSlots = new int[slotCount * 16];
+        this.nextThreadSlots = new int[slotCount * 16];
+    }
+
+    /**
+     * Finds a match in {@code [from, to)} of a line that starts at
+     * {@code lineStart} and ends at {@code to}; the anchors test against
+     * those line bounds, not against {@code from}.
+     */
+    boolean find(CharSequence text, int lineStart, int from, int to, Match match) {
+        begin(lineStart, to);
+        for (int pos = from; ; pos++) {
+            if (bestStart < 0) {
+                startThread(pos);
+            }
+            if (pos == to || (count == 0 && bestStart >= 0)) {
+                break;
+            }
+            step(text.charAt(pos), pos + 1);
+        }
+        return finish(match);
+    }
+
+    /**
+     * Finds a match in UTF-8 bytes, decoding chars as it goes. A char outside
+     * the BMP is fed as its surrogate pair with no match boundary between the
+     * two halves, and each malformed byte is fed as U+FFFD.
+     */
+    boolean find(ByteBuffer utf8, int lineStart, int from, int to, Match match) {
+        begin(lineStart, to);
+        int pos = from;
+        while (true) {
+            if (bestStart < 0) {
+                startThread(pos);
+            }
+            if (pos == to || (count == 0 && bestStart >= 0)) {
+                break;
+            }
+            int codePoint = decode(utf8, pos, to);
+            int next = pos + decodedWidth;
+            if (Character.isBmpCodePoint(codePoint)) {
+                step((char) codePoint, next);
+            } else {
+                step(Character.highSurrogate(codePoint), next);
+                step(Character.lowSurrogate(codePoint), next);
+            }
+            pos = next;
+        }
+        return finish(match);
+    }
+
+    private void begin(int lineStart, int lineEnd) {
+        this.lineStart = lineStart;
+        this.lineEnd = lineEnd;
+        bestStart = -1;
+        bestEnd = -1;
+        count = 0;
+        generation++;
+    }
+
+    private void startThread(int pos) {
+        Arrays.fill(slots, -1);
+        addThread(nfa.start(), pos, pos);
+    }
+
+    private boolean finish(Match match) {
+        if (bestStart < 0) {
+            return false;
+        }
+        match.set(bestStart, bestEnd);
+        if (slotCount > 0) {
+            match.setGroups(bestSlots, nfa.groupCount());
+        }
+        return true;
+    }
+
+    // Advances every live thread over ch into the next list, then makes that list current.
+    private void step(char ch, int end) {
+        generation++;
+        int[] currentStates = states;
+        int[] currentStarts = starts;
+        int[] currentSlots = threadSlots;
+        int currentCount = count;
+        swapLists();
+        count = 0;
+        for (int i = 0; i < currentCount; i++) {
+            int start = currentStarts[i];
+            if (bestStart >= 0 && start > bestStart) {
+                break;
+            }
+            int state = currentStates[i];
+            if (nfa.matches(state, ch)) {
+                if (slotCount > 0) {
+                    System.arraycopy(currentSlots, i * slotCount, slots, 0, slotCount);
+                }
+                addThread(nfa.next(state), start, end);
+            }
+        }
+    }
+
+    private void swapLists() {
+        int[] swapStates = states;
+        int[] swapStarts = starts;
+        int[] swapSlots = threadSlots;
+        states = nextStates;
+        starts = nextStarts;
+        threadSlots = nextThreadSlots;
+        nextStates = swapStates;
+        nextStarts = swapStarts;
+        nextThreadSlots = swapSlots;
+    }
+
+    // Adds the closure of state at position end to the current list; reaching MATCH records a candidate.
+    private void addThread(int state, int start, int end) {
+        int top = push(state, 0);
+        while (top > 0) {
+            int nfaState = stack[--top];
+            if (nfaState < 0) {
+                int save = ~nfaState;
+                slots[nfa.slot(save)] = savedSlots[save];
+                continue;
+            }
+            switch (nfa.opcode(nfaState)) {
+                case Nfa.CHAR -> {
+                    states[count] = nfaState;
+                    starts[count] = start;
+                    if (slotCount > 0) {
+                        saveThreadSlots();
+                    }
+                    count++;
+                }
+                case Nfa.SPLIT -> {
+                    top = push(nfa.alternate(nfaState), top);
+                    top = push(nfa.next(nfaState), top);
+                }
+                case Nfa.BEGIN -> {
+                    if (end == lineStart) {
+                        top = push(nfa.next(nfaState), top);
+                    }
+                }
+                case Nfa.END -> {
+                    if (end == lineEnd) {
+                        top = push(nfa.next(nfaState), top);
+                    }
+                }
+                case Nfa.SAVE -> {
+                    int slot = nfa.slot(nfaState);
+                    savedSlots[nfaState] = slots[slot];
+                    stack[top++] = ~nfaState;
+                    slots[slot] = end;
+                    top = push(nfa.next(nfaState), top);
+                }
+                case Nfa.MATCH -> {
+                    if (bestStart < 0 || start < bestStart || (start == bestStart && end > bestEnd)) {
+                        bestStart = start;
+                        bestEnd = end;
+                        System.arraycopy(slots, 0, bestSlots, 0, slotCount);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void saveThreadSlots() {
+        int offset = count * slotCount;
+        if (offset + slotCount > threadSlots.length) {
+            threadSlots = Arrays.copyOf(threadSlots, Math.max(offset + slotCount, threadSlots.length * 2));
+        }
+        System.arraycopy(slots, 0, threadSlots, offset, slotCount);
+    }
+
+    // States are marked when pushed, so each one enters the stack at most once per list.
+    private int push(int nfaState, int top) {
+        if (marks[nfaState] != generation) {
+            marks[nfaState] = generation;
+            stack[top++] = nfaState;
+        }
+        return top;
+    }
+
+    private int decode(ByteBuffer utf8, int pos, int to) {
+        int b = utf8.get(pos) & 0xFF;
+        decodedWidth = 1;
+        if (b < 0x80) {
+            return b;
+        }
+        int width = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC2 ? 2 : 0;
+        if (width == 0 || b > 0xF4 || pos + width > to) {
+            return 0xFFFD;
+        }
+        int codePoint = b & (0xFF >> (width + 1));
+        for (int i = 1; i < width; i++) {
+            int continuation = utf8.get(pos + i) & 0xFF;
+            if ((continuation & 0xC0) != 0x80) {
+                return 0xFFFD;
+            }
+            codePoint = (codePoint << 6) | (continuation & 0x3F);
+        }
+        boolean overlong = (width == 3 && codePoint < 0x800) || (width == 4 && codePoint < 0x10000);
+        if (overlong || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return 0xFFFD;
+        }
+        decodedWidth = width;
+        return codePoint;
+    }
+
+}
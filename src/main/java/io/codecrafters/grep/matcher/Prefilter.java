@@ -0,0 +1,106 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.Node;
+import io.codecrafters.grep.patterns.LiteralCharacter;
+import io.codecrafters.grep.patterns.PatternElement;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cheap reject test run before the DFA. The longest run of consecutive
+ * literal chars in a pattern must appear in every matching line, so a line
+ * without it can be dropped after a skip-table search without starting the
+ * automaton.
+ */
+final class Prefilter {
+
+    private static final int MIN_LITERAL_LENGTH = 2;
+
+    private final HorspoolSearch search;
+
+    private Prefilter(HorspoolSearch search) {
+        this.search = search;
+    }
+
+    /**
+     * Returns a prefilter for the longest literal run among the top-level
+     * children of a pattern. Only those are certain to take part in every
+     * match; literals under a repetition or alternation are not.
+     */
+    static Prefilter forNode(Node node) {
+        return forElements(topLevelElements(node));
+    }
+
+    /**
+     * Returns every run of literal chars among the top-level children of a
+     * pattern, each of which must appear in every matching line.
+     */
+    static List<String> requiredLiterals(Node node) {
+        List<PatternElement> elements = topLevelElements(node);
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        for (int i = 0; i <= elements.size(); i++) {
+            if (i < elements.size() && isPlainLiteral(elements.get(i))) {
+                run.append(((LiteralCharacter) elements.get(i)).character());
+            } else if (!run.isEmpty()) {
+                literals.add(run.toString());
+                run.setLength(0);
+            }
+        }
+        return List.copyOf(literals);
+    }
+
+    // Children that are not single elements are kept as nulls, which end a literal run.
+    private static List<PatternElement> topLevelElements(Node node) {
+        List<Node> children = node instanceof Node.Concat concat ? concat.nodes() : List.of(node);
+        List<PatternElement> elements = new ArrayList<>(children.size());
+        for (Node child : children) {
+            elements.add(child instanceof Node.Element element ? element.element() : null);
+        }
+        return elements;
+    }
+
+    /**
+     * Returns a prefilter for the pattern's longest literal run, or null when
+     * the run is too short to pay off or the whole pattern is that literal.
+     */
+    static Prefilter forElements(List<PatternElement> elements) {
+        int bestStart = 0;
+        int bestLength = 0;
+        int runStart = 0;
+        for (int i = 0; i <= elements.size(); i++) {
+            if (i < elements.size() && isPlainLiteral(elements.get(i))) {
+                continue;
+            }
+            if (i - runStart > bestLength) {
+                bestStart = runStart;
+                bestLength = i - runStart;
+            }
+            runStart = i + 1;
+        }
+        if (bestLength < MIN_LITERAL_LENGTH || bestLength == elements.size()) {
+            return null;
+        }
+        return new Prefilter(HorspoolSearch.forElements(elements.subList(bestStart, bestStart + bestLength)));
+    }
+
+    // Undecodable bytes reach the DFA as U+FFFD, which no byte search for that char would find.
+    private static boolean isPlainLiteral(PatternElement element) {
+        return element instanceof LiteralCharacter literal && literal.character() != '\uFFFD';
+    }
+
+    String literal() {
+        return search.literal();
+    }
+
+    boolean mayMatch(CharSequence text) {
+        return search.indexOf(text) >= 0;
+    }
+
+    boolean mayMatch(ByteBuffer utf8, int from, int to) {
+        return search.indexOf(utf8, from, to) >= 0;
+    }
+
+}
@@ -1,33 +1,217 @@
 package io.codecrafters.grep.matcher;
 
+import io.codecrafters.grep.parser.Node;
+import io.codecrafters.grep.parser.PatternFlag;
 import io.codecrafters.grep.parser.PatternParser;
 import io.codecrafters.grep.patterns.PatternElement;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public class RegexPattern {
 
-    private final List<PatternElement> patternElements;
+    static final int MAX_IDLE_MATCHERS = Runtime.getRuntime().availableProcessors();
+    // Matchers handed back by every pattern, most recently released first; guarded by itself.
+    private static final Deque<IdleMatcher> IDLE_MATCHERS = new ArrayDeque<>();
 
-    private RegexPattern(String pattern) {
-        this.patternElements = PatternParser.parse(pattern);
+    private final Nfa nfa;
+    private final HorspoolSearch literalSearch;
+    private final AhoCorasick literalSet;
+    private final Prefilter prefilter;
+    private final List<String> requiredLiterals;
+    private final long dfaMemoryBudget;
+    private final DfaCounters dfaCounters = new DfaCounters();
+    // Backs the find and matches conveniences; searchers acquire matchers instead, so long-lived
+    // pool threads do not each keep a DFA for every pattern they have seen.
+    private final ThreadLocal<Matcher> threadMatcher;
+
+    private RegexPattern(Nfa nfa, HorspoolSearch literalSearch, AhoCorasick literalSet, Prefilter prefilter,
+                         List<String> requiredLiterals) {
+        this(nfa, literalSearch, literalSet, prefilter, requiredLiterals, LazyDfa.DEFAULT_MEMORY_BUDGET);
+    }
+
+    private RegexPattern(Nfa nfa, HorspoolSearch literalSearch, AhoCorasick literalSet, Prefilter prefilter,
+                         List<String> requiredLiterals, long dfaMemoryBudget) {
+        this.nfa = nfa;
+        this.literalSearch = literalSearch;
+        this.literalSet = literalSet;
+        this.prefilter = prefilter;
+        this.requiredLiterals = requiredLiterals;
+        this.dfaMemoryBudget = dfaMemoryBudget;
+        this.threadMatcher = ThreadLocal.withInitial(this::matcher);
     }
 
     public static RegexPattern compile(String pattern) {
-        return new RegexPattern(pattern);
+        return compile(pattern, Set.of());
     }
 
-    public boolean matches(String text) {
-        PatternElement patternElement = patternElements.getFirst();
+    public static RegexPattern compile(String pattern, Set<PatternFlag> flags) {
+        Node node = PatternParser.parse(pattern, flags);
+        List<PatternElement> elements = Node.elementsOf(node);
+        HorspoolSearch literalSearch = elements == null ? null : HorspoolSearch.forElements(elements);
+        return new RegexPattern(Nfa.compile(node), literalSearch, null, Prefilter.forNode(node),
+                Prefilter.requiredLiterals(node));
+    }
+
+    /**
+     * Compiles a pattern that matches a line when any of the given patterns
+     * does, as with grep -f. An empty pattern matches every line and an empty
+     * list matches none. When every pattern is a literal they are searched
+     * together with one Aho-Corasick automaton; otherwise they are joined
+     * into a single NFA.
+     */
+    public static RegexPattern compileAll(List<String> patterns) {
+        return compileAll(patterns, Set.of());
+    }
+
+    public static RegexPattern compileAll(List<String> patterns, Set<PatternFlag> flags) {
+        if (patterns.size() == 1 && !patterns.getFirst().isEmpty()) {
+            return compile(patterns.getFirst(), flags);
+        }
+        List<Node> alternatives = new ArrayList<>(patterns.size());
+        List<String> literals = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            Node node = pattern.isEmpty() ? new Node.Concat(List.of()) : PatternParser.parse(pattern, flags);
+            alternatives.add(node);
+            if (literals != null) {
+                List<PatternElement> elements = Node.elementsOf(node);
+                String literal = elements == null ? null : HorspoolSearch.literalOf(elements);
+                if (literal == null) {
+                    literals = null;
+                } else {
+                    literals.add(literal);
+                }
+            }
+        }
+        if (literals != null) {
+            return new RegexPattern(null, null, AhoCorasick.forLiterals(literals), null, List.of());
+        }
+        return new RegexPattern(Nfa.compile(new Node.Alternation(alternatives)), null, null, null, List.of());
+    }
+
+    /**
+     * Returns this pattern with a different limit on the memory each
+     * matcher's DFA may spend on cached states. The limit applies per
+     * matcher, so a pattern used from n threads may hold n times as much.
+     * The returned pattern shares the compiled automata but has its own
+     * statistics.
+     */
+    public RegexPattern withDfaMemoryBudget(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("DFA memory budget must be positive: " + bytes);
+        }
+        return new RegexPattern(nfa, literalSearch, literalSet, prefilter, requiredLiterals, bytes);
+    }
+
+    public Matcher matcher() {
+        return new Matcher(nfa, literalSearch, literalSet, prefilter, dfaMemoryBudget, dfaCounters);
+    }
 
-        boolean matches = false;
-        for (char ch : text.toCharArray()) {
-            if (patternElement.match(ch)) {
-                matches = true;
-                break;
+    /**
+     * Returns a matcher for the caller's sole use, reusing one handed back
+     * through {@link #releaseMatcher(Matcher)} when there is one, so its DFA
+     * cache is already warm from earlier searches.
+     */
+    public Matcher acquireMatcher() {
+        synchronized (IDLE_MATCHERS) {
+            for (Iterator<IdleMatcher> it = IDLE_MATCHERS.iterator(); it.hasNext(); ) {
+                IdleMatcher idle = it.next();
+                if (idle.pattern() == this) {
+                    it.remove();
+                    return idle.matcher();
+                }
             }
         }
-        return matches;
+        return matcher();
+    }
+
+    /**
+     * Hands back a matcher from {@link #acquireMatcher()} that its owner no
+     * longer uses. Idle matchers are kept for all patterns together, one per
+     * core at most, and the least recently released is dropped to make room;
+     * so however many patterns are cached, idle DFA caches never hold more
+     * than {@code MAX_IDLE_MATCHERS} times the DFA memory budget.
+     */
+    public void releaseMatcher(Matcher matcher) {
+        synchronized (IDLE_MATCHERS) {
+            IDLE_MATCHERS.addFirst(new IdleMatcher(this, matcher));
+            if (IDLE_MATCHERS.size() > MAX_IDLE_MATCHERS) {
+                IDLE_MATCHERS.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Returns DFA cache activity summed over every matcher of this pattern.
+     * Patterns searched as literals never build a DFA and report zeros.
+     */
+    public DfaStats dfaStats() {
+        return dfaCounters.stats();
+    }
+
+    public boolean find(CharSequence text, int from, Match match) {
+        return threadMatcher.get().find(text, from, match);
+    }
+
+    public boolean find(ByteBuffer utf8, int from, int to, Match match) {
+        return threadMatcher.get().find(utf8, from, to, match);
+    }
+
+    public boolean find(ByteBuffer utf8, int lineStart, int from, int to, Match match) {
+        return threadMatcher.get().find(utf8, lineStart, from, to, match);
+    }
+
+    /**
+     * Returns the literal that lines must contain before the full matcher
+     * runs on them, if a prefilter was selected for this pattern. Pure
+     * literal patterns and pattern sets are searched directly and have none.
+     */
+    public Optional<String> prefilter() {
+        return Optional.ofNullable(prefilter).map(Prefilter::literal);
+    }
+
+    /**
+     * Returns literals that every matching line contains, so an index can
+     * rule out inputs without reading them. Pattern sets report none.
+     */
+    public List<String> requiredLiterals() {
+        return requiredLiterals;
+    }
+
+    public boolean matches(String text) {
+        return threadMatcher.get().matches(text);
+    }
+
+    public boolean matches(CharSequence text) {
+        return threadMatcher.get().matches(text);
+    }
+
+    public boolean matches(char[] text, int offset, int length) {
+        return threadMatcher.get().matches(text, offset, length);
+    }
+
+    /**
+     * Matches a UTF-8 encoded line held in {@code [offset, offset + length)}
+     * of the buffer, using a matcher private to the calling thread.
+     */
+    public boolean matches(ByteBuffer utf8, int offset, int length) {
+        return threadMatcher.get().matches(utf8, offset, length);
+    }
+
+    /**
+     * Counts of DFA states built, cache flushes forced by the memory budget,
+     * and scans handed to the NFA simulation because the cache was thrashing.
+     */
+    public record DfaStats(long statesBuilt, long cacheResets, long fallbacks) {
+    }
+
+    private record IdleMatcher(RegexPattern pattern, Matcher matcher) {
     }
 
 }
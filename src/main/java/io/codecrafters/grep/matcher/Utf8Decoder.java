@@ -0,0 +1,43 @@
+package io.codecrafters.grep.matcher;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable UTF-8 decoder for the lines the byte-level path cannot decide.
+ * Malformed input is replaced rather than rejected, as grep does.
+ */
+final class Utf8Decoder {
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private ByteBuffer source;
+    private ByteBuffer view;
+    private CharBuffer decoded = CharBuffer.allocate(INITIAL_CAPACITY);
+
+    CharBuffer decode(ByteBuffer utf8, int offset, int length) {
+        // Decode through a private view so the caller's position and limit stay intact.
+        if (utf8 != source) {
+            source = utf8;
+            view = utf8.duplicate();
+        }
+        // UTF-8 never yields more chars than bytes, so one pass always fits.
+        if (decoded.capacity() < length) {
+            decoded = CharBuffer.allocate(Math.max(length, decoded.capacity() * 2));
+        }
+        view.limit(offset + length).position(offset);
+        decoded.clear();
+        decoder.reset();
+        decoder.decode(view, decoded, true);
+        decoder.flush(decoded);
+        return decoded.flip();
+    }
+
+}
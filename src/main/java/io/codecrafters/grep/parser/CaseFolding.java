@@ -0,0 +1,63 @@
+package io.codecrafters.grep.parser;
+
+/**
+ * Single-char case equivalence for {@link PatternFlag#IGNORE_CASE}. Two
+ * chars are equivalent when uppercasing and then lowercasing maps them to
+ * the same char, which groups k, K and the Kelvin sign, or ß and ẞ. The
+ * table is built once, the first time a case-insensitive pattern is parsed.
+ */
+final class CaseFolding {
+
+    private static final char[] NONE = new char[0];
+    private static final char[][] VARIANTS = build();
+
+    private CaseFolding() {
+    }
+
+    /**
+     * Returns the chars other than ch that fold to the same char, or an
+     * empty array when ch has no other case.
+     */
+    static char[] variants(char ch) {
+        return VARIANTS[ch];
+    }
+
+    private static char[][] build() {
+        int size = Character.MAX_VALUE + 1;
+        char[] folded = new char[size];
+        int[] groupSizes = new int[size];
+        for (int ch = 0; ch < size; ch++) {
+            folded[ch] = Character.toLowerCase(Character.toUpperCase((char) ch));
+            groupSizes[folded[ch]]++;
+        }
+        char[][] groups = new char[size][];
+        int[] filled = new int[size];
+        for (int ch = 0; ch < size; ch++) {
+            int key = folded[ch];
+            if (groupSizes[key] > 1) {
+                if (groups[key] == null) {
+                    groups[key] = new char[groupSizes[key]];
+                }
+                groups[key][filled[key]++] = (char) ch;
+            }
+        }
+        char[][] variants = new char[size][];
+        for (int ch = 0; ch < size; ch++) {
+            char[] group = groups[folded[ch]];
+            if (group == null) {
+                variants[ch] = NONE;
+                continue;
+            }
+            char[] others = new char[group.length - 1];
+            int count = 0;
+            for (char member : group) {
+                if (member != ch) {
+                    others[count++] = member;
+                }
+            }
+            variants[ch] = others;
+        }
+        return variants;
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.codecrafters.grep.parser;
+
+import io.codecrafters.grep.patterns.PatternElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Syntax tree produced by {@link PatternParser}. Leaves are single-char
+ * {@link PatternElement}s and anchors; inner nodes concatenate, alternate,
+ * repeat or capture their children.
+ */
+public sealed interface Node {
+
+    int UNBOUNDED = -1;
+
+    record Element(PatternElement element) implements Node {
+    }
+
+    /**
+     * Children matched one after another; with no children it matches the empty string.
+     */
+    record Concat(List<Node> nodes) implements Node {
+
+        public Concat {
+            nodes = List.copyOf(nodes);
+        }
+    }
+
+    record Alternation(List<Node> alternatives) implements Node {
+
+        public Alternation {
+            alternatives = List.copyOf(alternatives);
+        }
+    }
+
+    /**
+     * Between {@code min} and {@code max} repetitions, {@code max} being
+     * {@link #UNBOUNDED} for {@code *}, {@code +} and {@code {m,}}.
+     */
+    record Repeat(Node node, int min, int max) implements Node {
+    }
+
+    /**
+     * A parenthesized subexpression; groups are numbered from 1 in the order
+     * their opening parentheses appear.
+     */
+    record Group(Node node, int index) implements Node {
+    }
+
+    enum Anchor implements Node {
+        BEGIN,
+        END
+    }
+
+    static Node sequence(List<PatternElement> elements) {
+        return new Concat(elements.stream().<Node>map(Element::new).toList());
+    }
+
+    /**
+     * Returns the elements of a node that is nothing but a sequence of
+     * elements, or null when it contains any other construct.
+     */
+    static List<PatternElement> elementsOf(Node node) {
+        return switch (node) {
+            case Element element -> List.of(element.element());
+            case Concat concat -> {
+                List<PatternElement> elements = new ArrayList<>(concat.nodes().size());
+                for (Node child : concat.nodes()) {
+                    if (!(child instanceof Element element)) {
+                        yield null;
+                    }
+                    elements.add(element.element());
+                }
+                yield elements;
+            }
+            default -> null;
+        };
+    }
+
+}
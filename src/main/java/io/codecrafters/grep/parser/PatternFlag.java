@@ -0,0 +1,22 @@
+package io.codecrafters.grep.parser;
+
+/**
+ * Options that change how a pattern is parsed.
+ */
+public enum PatternFlag {
+
+    /**
+     * Makes {@code \d} and {@code \w} match only ASCII digits and word
+     * chars instead of their Unicode counterparts, and limits
+     * {@link #IGNORE_CASE} to folding ASCII letters.
+     */
+    ASCII,
+
+    /**
+     * Makes letters in literals and bracket expressions match in either
+     * case. The other cases are added to the pattern when it is parsed, so
+     * input is never case-converted while matching.
+     */
+    IGNORE_CASE
+
+}
@@ -1,38 +1,304 @@
 package io.codecrafters.grep.parser;
 
+import io.codecrafters.grep.patterns.AnyCharacter;
 import io.codecrafters.grep.patterns.CharacterClass;
 import io.codecrafters.grep.patterns.EscapedSequence;
 import io.codecrafters.grep.patterns.LiteralCharacter;
 import io.codecrafters.grep.patterns.PatternElement;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Recursive-descent parser for extended regular expressions. As in GNU grep,
+ * a repetition operator with nothing before it, a {@code {} that does not
+ * start an interval and an unmatched {@code )} are literal characters.
+ */
 public class PatternParser {
 
-    public static List<PatternElement> parse(String pattern) {
+    static final int MAX_REPEAT = 1000;
+    // Bounds the recursion of everything that walks the parsed tree, including this parser.
+    static final int MAX_NESTING = 500;
+
+    private final String pattern;
+    private final boolean ascii;
+    private final boolean ignoreCase;
+    private int position;
+    private int groupCount;
+    // Number of groups open at the current position; ')' only closes one when positive.
+    private int depth;
+    // Height of the tree returned by the latest parse method, checked against MAX_NESTING.
+    private int height;
+
+    private PatternParser(String pattern, Set<PatternFlag> flags) {
+        this.pattern = pattern;
+        this.ascii = flags.contains(PatternFlag.ASCII);
+        this.ignoreCase = flags.contains(PatternFlag.IGNORE_CASE);
+    }
+
+    public static Node parse(String pattern) {
+        return parse(pattern, Set.of());
+    }
+
+    public static Node parse(String pattern, Set<PatternFlag> flags) {
         if (pattern == null || pattern.isEmpty()) {
             throw new ParseException("Pattern cannot be null or empty");
-        } else if (pattern.length() == 1) {
-            return List.of(new LiteralCharacter(pattern.charAt(0)));
-        } else if (pattern.startsWith("\\") && pattern.length() == 2) {
-            char escapeChar = pattern.charAt(1);
-            return switch (escapeChar) {
-                case 'd' -> List.of(EscapedSequence.DIGIT);
-                case 'w' -> List.of(EscapedSequence.WORD);
-                default -> throw new ParseException("Unknown escape sequence: \\" + escapeChar);
-            };
-        } else if (pattern.startsWith("[") && pattern.endsWith("]")) {
-            boolean isNegative = pattern.charAt(1) == '^';
-            int startIndex = isNegative ? 2 : 1;
-            int endIndex = pattern.length() - 1;
-            if (startIndex >= endIndex) {
-                throw new ParseException("Empty character group in pattern: " + pattern);
-            }
-            String charGroup = pattern.substring(startIndex, endIndex);
-
-            return List.of(new CharacterClass(charGroup, isNegative));
-        } else {
-            throw new ParseException("Unsupported pattern: " + pattern);
+        }
+        rejectSupplementaryCharacters(pattern);
+        return new PatternParser(pattern, flags).parseAlternation();
+    }
+
+    private Node parseAlternation() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(parseConcat());
+        int tallest = height;
+        while (position < pattern.length() && pattern.charAt(position) == '|') {
+            position++;
+            alternatives.add(parseConcat());
+            tallest = Math.max(tallest, height);
+        }
+        if (alternatives.size() == 1) {
+            return alternatives.getFirst();
+        }
+        setHeight(tallest + 1);
+        return new Node.Alternation(alternatives);
+    }
+
+    private Node parseConcat() {
+        List<Node> nodes = new ArrayList<>();
+        int tallest = 0;
+        while (position < pattern.length()) {
+            char ch = pattern.charAt(position);
+            if (ch == '|' || (ch == ')' && depth > 0)) {
+                break;
+            }
+            nodes.add(parseRepeat());
+            tallest = Math.max(tallest, height);
+        }
+        if (nodes.size() == 1) {
+            return nodes.getFirst();
+        }
+        setHeight(tallest + 1);
+        return new Node.Concat(nodes);
+    }
+
+    private Node parseRepeat() {
+        Node node = parseAtom();
+        // An operator after an anchor is left for parseAtom, which takes it literally.
+        if (node instanceof Node.Anchor) {
+            return node;
+        }
+        while (position < pattern.length()) {
+            switch (pattern.charAt(position)) {
+                case '*' -> node = new Node.Repeat(node, 0, Node.UNBOUNDED);
+                case '+' -> node = new Node.Repeat(node, 1, Node.UNBOUNDED);
+                case '?' -> node = new Node.Repeat(node, 0, 1);
+                case '{' -> {
+                    Node interval = parseInterval(node);
+                    if (interval == null) {
+                        return node;
+                    }
+                    node = interval;
+                    setHeight(height + 1);
+                    continue;
+                }
+                default -> {
+                    return node;
+                }
+            }
+            // Each operator wraps the node before it, so a long run of them nests as deeply as groups do.
+            setHeight(height + 1);
+            position++;
+        }
+        return node;
+    }
+
+    // Parses {m}, {m,}, {,n} or {m,n} at the current position, or returns null when the brace does not start one.
+    private Node parseInterval(Node node) {
+        int close = pattern.indexOf('}', position);
+        if (close < 0) {
+            return null;
+        }
+        String body = pattern.substring(position + 1, close);
+        int comma = body.indexOf(',');
+        String lower = comma < 0 ? body : body.substring(0, comma);
+        String upper = comma < 0 ? body : body.substring(comma + 1);
+        if (!isBound(lower) || !isBound(upper) || (lower.isEmpty() && upper.isEmpty())) {
+            return null;
+        }
+        int min = lower.isEmpty() ? 0 : parseBound(lower);
+        int max = upper.isEmpty() ? Node.UNBOUNDED : parseBound(upper);
+        if (max != Node.UNBOUNDED && min > max) {
+            throw new ParseException("Invalid interval {" + body + "} in pattern: " + pattern);
+        }
+        position = close + 1;
+        return new Node.Repeat(node, min, max);
+    }
+
+    private static boolean isBound(String bound) {
+        return bound.chars().allMatch(ch -> ch >= '0' && ch <= '9');
+    }
+
+    private int parseBound(String bound) {
+        if (bound.length() > 4 || Integer.parseInt(bound) > MAX_REPEAT) {
+            throw new ParseException("Repetition count exceeds " + MAX_REPEAT + " in pattern: " + pattern);
+        }
+        return Integer.parseInt(bound);
+    }
+
+    // Operators reach this point only when nothing precedes them, so they are literal here.
+    private Node parseAtom() {
+        char ch = pattern.charAt(position);
+        height = 1;
+        switch (ch) {
+            case '(' -> {
+                int index = ++groupCount;
+                position++;
+                if (++depth > MAX_NESTING) {
+                    throw new ParseException("Groups nested deeper than " + MAX_NESTING + " in pattern: " + pattern);
+                }
+                Node inner = parseAlternation();
+                depth--;
+                if (position >= pattern.length() || pattern.charAt(position) != ')') {
+                    throw new ParseException("Unclosed group in pattern: " + pattern);
+                }
+                position++;
+                setHeight(height + 1);
+                return new Node.Group(inner, index);
+            }
+            case '^' -> {
+                position++;
+                return Node.Anchor.BEGIN;
+            }
+            case '$' -> {
+                position++;
+                return Node.Anchor.END;
+            }
+            case '.' -> {
+                position++;
+                return new Node.Element(AnyCharacter.INSTANCE);
+            }
+            case '\\' -> {
+                PatternElement element = parseEscape(position);
+                position += 2;
+                return new Node.Element(element);
+            }
+            case '[' -> {
+                List<PatternElement> elements = new ArrayList<>(1);
+                position = parseCharacterClass(position, elements);
+                return new Node.Element(elements.getFirst());
+            }
+            default -> {
+                position++;
+                return new Node.Element(literal(ch));
+            }
+        }
+    }
+
+    private void setHeight(int height) {
+        if (height > MAX_NESTING) {
+            throw new ParseException("Pattern nests deeper than " + MAX_NESTING + " levels: " + pattern);
+        }
+        this.height = height;
+    }
+
+    private PatternElement parseEscape(int index) {
+        if (index + 1 >= pattern.length()) {
+            throw new ParseException("Trailing backslash in pattern: " + pattern);
+        }
+        char escapeChar = pattern.charAt(index + 1);
+        return switch (escapeChar) {
+            case 'd' -> ascii ? EscapedSequence.ASCII_DIGIT : EscapedSequence.DIGIT;
+            case 'w' -> ascii ? EscapedSequence.ASCII_WORD : EscapedSequence.WORD;
+            default -> {
+                // Escaping punctuation makes it literal; escaped letters and digits are reserved.
+                if (Character.isLetterOrDigit(escapeChar)) {
+                    throw new ParseException("Unknown escape sequence: \\" + escapeChar);
+                }
+                yield literal(escapeChar);
+            }
+        };
+    }
+
+    // With IGNORE_CASE a letter becomes the class of its case variants; other chars stay literal.
+    private PatternElement literal(char ch) {
+        if (ignoreCase) {
+            CharacterClass.Builder builder = new CharacterClass.Builder();
+            if (addCaseVariants(builder, ch)) {
+                return builder.build(false);
+            }
+        }
+        return new LiteralCharacter(ch);
+    }
+
+    // Adds ch's other cases to the builder; returns whether it has any. ASCII mode folds only within ASCII.
+    private boolean addCaseVariants(CharacterClass.Builder builder, char ch) {
+        boolean added = false;
+        for (char variant : CaseFolding.variants(ch)) {
+            if (!ascii || (ch < 0x80 && variant < 0x80)) {
+                builder.add(variant);
+                added = true;
+            }
+        }
+        if (added) {
+            builder.add(ch);
+        }
+        return added;
+    }
+
+    // Parses the bracket expression starting at index; returns the index just past its closing ']'.
+    private int parseCharacterClass(int index, List<PatternElement> elements) {
+        boolean isNegative = index + 1 < pattern.length() && pattern.charAt(index + 1) == '^';
+        int startIndex = isNegative ? index + 2 : index + 1;
+        int endIndex = pattern.indexOf(']', startIndex);
+        if (endIndex < 0) {
+            throw new ParseException("Unclosed character group in pattern: " + pattern);
+        }
+        if (startIndex == endIndex) {
+            throw new ParseException("Empty character group in pattern: " + pattern);
+        }
+        String charGroup = pattern.substring(startIndex, endIndex);
+
+        elements.add(parseCharacterGroup(charGroup).build(isNegative));
+        return endIndex + 1;
+    }
+
+    // A '-' between two characters forms a range; at either end of the group it is literal.
+    private CharacterClass.Builder parseCharacterGroup(String charGroup) {
+        CharacterClass.Builder builder = new CharacterClass.Builder();
+        int i = 0;
+        while (i < charGroup.length()) {
+            char first = charGroup.charAt(i);
+            if (i + 2 < charGroup.length() && charGroup.charAt(i + 1) == '-') {
+                char last = charGroup.charAt(i + 2);
+                if (first > last) {
+                    throw new ParseException("Invalid range end in character group: " + first + "-" + last);
+                }
+                builder.addRange(first, last);
+                if (ignoreCase) {
+                    for (int ch = first; ch <= last; ch++) {
+                        addCaseVariants(builder, (char) ch);
+                    }
+                }
+                i += 3;
+            } else {
+                builder.add(first);
+                if (ignoreCase) {
+                    addCaseVariants(builder, first);
+                }
+                i++;
+            }
+        }
+        return builder;
+    }
+
+    // Elements match a single UTF-16 char, so a surrogate pair cannot be expressed as one element.
+    private static void rejectSupplementaryCharacters(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (Character.isSurrogate(pattern.charAt(i))) {
+                throw new ParseException("Supplementary characters are not supported: " + pattern);
+            }
         }
     }
 
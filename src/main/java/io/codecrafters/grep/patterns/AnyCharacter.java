@@ -0,0 +1,20 @@
+package io.codecrafters.grep.patterns;
+
+/**
+ * The {@code .} wildcard: any char except a newline.
+ */
+public enum AnyCharacter implements PatternElement {
+
+    INSTANCE;
+
+    @Override
+    public boolean match(char ch) {
+        return ch != '\n';
+    }
+
+    @Override
+    public boolean isAsciiOnly() {
+        return false;
+    }
+
+}
@@ -1,24 +1,151 @@
 package io.codecrafters.grep.patterns;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
+/**
+ * Bracket expression stored without boxing: ASCII members live in a 128-bit
+ * bitmap and everything else in a sorted table of disjoint ranges. Negation
+ * is applied once at construction, so {@link #match(char)} is a bit test or
+ * a binary search.
+ */
 public class CharacterClass implements PatternElement {
 
-    private final Set<Character> characterGroup;
-    private final boolean isNegative;
+    private static final char FIRST_NON_ASCII = 0x80;
+
+    private final long lowBits;
+    private final long highBits;
+    private final char[] rangeStarts;
+    private final char[] rangeEnds;
 
     public CharacterClass(String characterGroup, boolean isNegative) {
-        this.characterGroup = characterGroup.chars()
-                .mapToObj(c -> (char) c)
-                .collect(Collectors.toSet());
-        this.isNegative = isNegative;
+        this(membersOf(characterGroup), isNegative);
+    }
+
+    private CharacterClass(Builder builder, boolean isNegative) {
+        char[][] ranges = builder.nonAsciiRanges();
+        if (isNegative) {
+            this.lowBits = ~builder.lowBits;
+            this.highBits = ~builder.highBits;
+            ranges = complement(ranges[0], ranges[1]);
+        } else {
+            this.lowBits = builder.lowBits;
+            this.highBits = builder.highBits;
+        }
+        this.rangeStarts = ranges[0];
+        this.rangeEnds = ranges[1];
     }
 
     @Override
     public boolean match(char ch) {
-        boolean isFound = characterGroup.contains(ch);
-        return isNegative != isFound;
+        if (ch < 64) {
+            return (lowBits & (1L << ch)) != 0;
+        }
+        if (ch < FIRST_NON_ASCII) {
+            return (highBits & (1L << (ch - 64))) != 0;
+        }
+        int index = Arrays.binarySearch(rangeStarts, ch);
+        if (index >= 0) {
+            return true;
+        }
+        int candidate = -index - 2;
+        return candidate >= 0 && ch <= rangeEnds[candidate];
+    }
+
+    @Override
+    public boolean isAsciiOnly() {
+        return rangeStarts.length == 0;
+    }
+
+    private static Builder membersOf(String characterGroup) {
+        Builder builder = new Builder();
+        for (int i = 0; i < characterGroup.length(); i++) {
+            builder.add(characterGroup.charAt(i));
+        }
+        return builder;
+    }
+
+    private static char[][] complement(char[] starts, char[] ends) {
+        char[] complementStarts = new char[starts.length + 1];
+        char[] complementEnds = new char[starts.length + 1];
+        int count = 0;
+        int next = FIRST_NON_ASCII;
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] > next) {
+                complementStarts[count] = (char) next;
+                complementEnds[count] = (char) (starts[i] - 1);
+                count++;
+            }
+            next = ends[i] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            complementStarts[count] = (char) next;
+            complementEnds[count] = Character.MAX_VALUE;
+            count++;
+        }
+        return new char[][]{Arrays.copyOf(complementStarts, count), Arrays.copyOf(complementEnds, count)};
+    }
+
+    public static final class Builder {
+
+        private long lowBits;
+        private long highBits;
+        private char[] starts = new char[4];
+        private char[] ends = new char[4];
+        private int rangeCount;
+
+        public Builder add(char ch) {
+            return addRange(ch, ch);
+        }
+
+        public Builder addRange(char first, char last) {
+            if (first > last) {
+                throw new IllegalArgumentException("Invalid range: " + first + "-" + last);
+            }
+            for (char ch = first; ch <= last && ch < FIRST_NON_ASCII; ch++) {
+                if (ch < 64) {
+                    lowBits |= 1L << ch;
+                } else {
+                    highBits |= 1L << (ch - 64);
+                }
+            }
+            if (last >= FIRST_NON_ASCII) {
+                if (rangeCount == starts.length) {
+                    starts = Arrays.copyOf(starts, rangeCount * 2);
+                    ends = Arrays.copyOf(ends, rangeCount * 2);
+                }
+                starts[rangeCount] = (char) Math.max(first, FIRST_NON_ASCII);
+                ends[rangeCount] = last;
+                rangeCount++;
+            }
+            return this;
+        }
+
+        public CharacterClass build(boolean isNegative) {
+            return new CharacterClass(this, isNegative);
+        }
+
+        // Sorts and merges the non-ASCII ranges so lookups can binary search them.
+        private char[][] nonAsciiRanges() {
+            Integer[] order = new Integer[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Character.compare(starts[a], starts[b]));
+
+            char[] mergedStarts = new char[rangeCount];
+            char[] mergedEnds = new char[rangeCount];
+            int count = 0;
+            for (int index : order) {
+                if (count > 0 && starts[index] <= mergedEnds[count - 1] + 1) {
+                    mergedEnds[count - 1] = (char) Math.max(mergedEnds[count - 1], ends[index]);
+                } else {
+                    mergedStarts[count] = starts[index];
+                    mergedEnds[count] = ends[index];
+                    count++;
+                }
+            }
+            return new char[][]{Arrays.copyOf(mergedStarts, count), Arrays.copyOf(mergedEnds, count)};
+        }
     }
 
 }
@@ -1,5 +1,11 @@
 package io.codecrafters.grep.patterns;
 
+/**
+ * The {@code \d} and {@code \w} shorthands. The plain constants follow
+ * Unicode, as grep does in a UTF-8 locale; the {@code ASCII_} constants
+ * accept only {@code [0-9]} and {@code [A-Za-z0-9_]}, as in the C locale,
+ * and test a 128-bit bitmap instead of the Unicode tables.
+ */
 public enum EscapedSequence implements PatternElement {
 
     DIGIT {
@@ -14,6 +20,37 @@ public enum EscapedSequence implements PatternElement {
         public boolean match(char ch) {
             return Character.isLetterOrDigit(ch) || ch == '_';
         }
+    },
+
+    ASCII_DIGIT(0x03FF_0000_0000_0000L, 0L),
+
+    ASCII_WORD(0x03FF_0000_0000_0000L, 0x07FF_FFFE_87FF_FFFEL);
+
+    // Members below 64 and from 64 to 127; zero for the Unicode constants.
+    private final long lowBits;
+    private final long highBits;
+
+    EscapedSequence() {
+        this(0L, 0L);
+    }
+
+    EscapedSequence(long lowBits, long highBits) {
+        this.lowBits = lowBits;
+        this.highBits = highBits;
+    }
+
+    @Override
+    public boolean match(char ch) {
+        if (ch < 64) {
+            return (lowBits & (1L << ch)) != 0;
+        }
+        return ch < 128 && (highBits & (1L << (ch - 64))) != 0;
+    }
+
+    @Override
+    public boolean isAsciiOnly() {
+        // Character.isDigit and isLetterOrDigit accept non-ASCII digits and letters.
+        return this == ASCII_DIGIT || this == ASCII_WORD;
     }
 
 }
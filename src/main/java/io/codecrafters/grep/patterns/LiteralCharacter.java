@@ -8,9 +8,18 @@ public class LiteralCharacter implements PatternElement {
         this.character = character;
     }
 
+    public char character() {
+        return character;
+    }
+
     @Override
     public boolean match(char ch) {
         return character == ch;
     }
 
+    @Override
+    public boolean isAsciiOnly() {
+        return character < 0x80;
+    }
+
 }
@@ -4,4 +4,6 @@ public interface PatternElement {
 
     boolean match(char ch);
 
+    boolean isAsciiOnly();
+
 }
@@ -0,0 +1,195 @@
+package io.codecrafters.grep.search;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the decompressed bytes of a gzip stream, inflating ahead of the
+ * reader so inflating and matching overlap. Inflating runs on a pool shared
+ * by all gzip inputs, with one thread per core, so searching many gzip files
+ * at once does not start a thread for each. The inflater fills large buffers
+ * and hands them over a bounded queue; when the queue is full it gives its
+ * pool thread up rather than waiting, and the reader schedules it again as
+ * it drains. Drained buffers are handed back for reuse, so no more than
+ * {@code QUEUE_DEPTH + 2} buffers ever exist however large the input is.
+ */
+public final class GzipChannel implements ReadableByteChannel {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final int QUEUE_DEPTH = 4;
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+    private static final Chunk END = new Chunk(null, 0, null);
+    private static final ExecutorService INFLATERS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), Thread.ofPlatform().name("gzip-inflater-", 0).daemon().factory());
+
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+    private final BlockingQueue<byte[]> drained = new ArrayBlockingQueue<>(QUEUE_DEPTH + 2);
+    private final ReadableByteChannel source;
+    private final int bufferSize;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // Held while inflating, so closing waits for a running inflater to let go of the source.
+    private final ReentrantLock inflating = new ReentrantLock();
+    private volatile boolean finished;
+    private volatile boolean closing;
+    private InputStream in;
+    private boolean exhausted;
+    private ByteBuffer current;
+    private boolean ended;
+
+    public GzipChannel(ReadableByteChannel source) {
+        this(source, DEFAULT_BUFFER_SIZE);
+    }
+
+    public GzipChannel(ReadableByteChannel source, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.source = source;
+        this.bufferSize = bufferSize;
+        schedule();
+    }
+
+    /**
+     * Returns whether the regular file starts with the gzip magic number.
+     * The channel's position is left untouched.
+     */
+    public static boolean isGzip(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(2);
+        channel.read(magic, 0);
+        return magic.position() == 2 && magic.get(0) == (byte) 0x1f && magic.get(1) == (byte) 0x8b;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (closing) {
+            throw new ClosedChannelException();
+        }
+        if (current == null || !current.hasRemaining()) {
+            if (ended) {
+                return -1;
+            }
+            if (current != null) {
+                drained.offer(current.array());
+                current = null;
+            }
+            Chunk chunk = take();
+            schedule();
+            if (chunk.error != null) {
+                ended = true;
+                throw chunk.error;
+            }
+            if (chunk == END) {
+                ended = true;
+                return -1;
+            }
+            current = ByteBuffer.wrap(chunk.bytes, 0, chunk.length);
+        }
+        int length = Math.min(dst.remaining(), current.remaining());
+        dst.put(dst.position(), current, current.position(), length);
+        dst.position(dst.position() + length);
+        current.position(current.position() + length);
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closing;
+    }
+
+    /**
+     * Stops the inflater, which may still be ahead of the reader when a
+     * search ends early, and waits for it to release the source.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        inflating.lock();
+        try {
+            if (in != null) {
+                in.close();
+            }
+        } finally {
+            inflating.unlock();
+        }
+    }
+
+    private Chunk take() throws IOException {
+        try {
+            return filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading gzip input");
+        }
+    }
+
+    private void schedule() {
+        if (!finished && !closing && scheduled.compareAndSet(false, true)) {
+            INFLATERS.execute(this::inflate);
+        }
+    }
+
+    // Runs on a pool thread until the queue is full; only one runs at a time, so the queue only gains room meanwhile.
+    private void inflate() {
+        inflating.lock();
+        try {
+            while (!finished && !closing && filled.remainingCapacity() > 0) {
+                filled.add(next());
+            }
+        } finally {
+            inflating.unlock();
+        }
+        scheduled.set(false);
+        // The reader may have made room after the check above while this run still counted as scheduled.
+        if (filled.remainingCapacity() > 0) {
+            schedule();
+        }
+    }
+
+    // A failure is queued for the reader to rethrow in order.
+    private Chunk next() {
+        if (exhausted) {
+            finished = true;
+            return END;
+        }
+        try {
+            if (in == null) {
+                in = new GZIPInputStream(Channels.newInputStream(source), INPUT_BUFFER_SIZE);
+            }
+            byte[] bytes = drained.poll();
+            if (bytes == null) {
+                bytes = new byte[bufferSize];
+            }
+            int length = in.readNBytes(bytes, 0, bytes.length);
+            exhausted = length < bytes.length;
+            if (length == 0) {
+                finished = true;
+                return END;
+            }
+            return new Chunk(bytes, length, null);
+        } catch (IOException e) {
+            finished = true;
+            return new Chunk(null, 0, e);
+        }
+    }
+
+    private record Chunk(byte[] bytes, int length, IOException error) {
+    }
+
+}
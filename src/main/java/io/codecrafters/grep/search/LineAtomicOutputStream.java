@@ -0,0 +1,58 @@
+package io.codecrafters.grep.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Per-task output buffer in front of a stream shared between threads. Bytes
+ * are collected privately and handed to the shared stream, under its lock,
+ * only after a newline or on {@link #flush()}, so lines written by different
+ * threads never interleave.
+ */
+public final class LineAtomicOutputStream extends OutputStream {
+
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1 << 13;
+
+    private final OutputStream target;
+    private final int flushThreshold;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    public LineAtomicOutputStream(OutputStream target) {
+        this(target, DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    public LineAtomicOutputStream(OutputStream target, int flushThreshold) {
+        this.target = target;
+        this.flushThreshold = flushThreshold;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        pending.write(b);
+        if (b == '\n' && pending.size() >= flushThreshold) {
+            flush();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        pending.write(b, off, len);
+    }
+
+    /**
+     * Hands everything written so far to the shared stream. Callers must only
+     * flush after a complete line.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        synchronized (target) {
+            pending.writeTo(target);
+        }
+        pending.reset();
+    }
+
+}
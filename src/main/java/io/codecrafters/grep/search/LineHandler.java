@@ -0,0 +1,29 @@
+package io.codecrafters.grep.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives one line as an absolute range of a buffer owned by the caller,
+ * along with the position of its first byte in the whole input. The
+ * buffer's position and limit must be left untouched, and the range is only
+ * valid for the duration of the call. Returning false tells the scanner the
+ * answer is known, and it stops reading the input.
+ */
+@FunctionalInterface
+public interface LineHandler {
+
+    boolean onLine(ByteBuffer buffer, int offset, int length, long position) throws IOException;
+
+    /**
+     * Returns the input position of the earliest line already handed out
+     * that the handler still needs to read, or {@link Long#MAX_VALUE} when
+     * it needs none. Scanners keep the bytes from there on in the buffer of
+     * the next line, at the same distance from it, so the handler can find
+     * earlier lines by position without copying them.
+     */
+    default long retainFrom() {
+        return Long.MAX_VALUE;
+    }
+
+}
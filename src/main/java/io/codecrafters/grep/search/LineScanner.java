@@ -0,0 +1,88 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.ByteSearch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Splits a channel into newline-terminated lines using a single reusable
+ * buffer. Lines are handed out as ranges of that buffer, so no per-line
+ * objects are created; the buffer only grows when one line does not fit.
+ */
+public final class LineScanner {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private byte[] array;
+    private ByteBuffer buffer;
+
+    public LineScanner() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public LineScanner(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.array = new byte[bufferSize];
+        this.buffer = ByteBuffer.wrap(array);
+    }
+
+    /**
+     * Hands every line of the channel to the handler until the input ends or
+     * the handler asks to stop; nothing past that line is read.
+     */
+    public void scan(ReadableByteChannel channel, LineHandler handler) throws IOException {
+        int lineStart = 0;
+        int searchFrom = 0;
+        int end = 0;
+        // Input position of the first byte in the buffer.
+        long base = 0;
+        while (true) {
+            if (end == array.length) {
+                // Bytes before the current line are dropped unless the handler still needs them.
+                int keepFrom = (int) Math.max(0, Math.min(lineStart, handler.retainFrom() - base));
+                if (keepFrom > 0) {
+                    System.arraycopy(array, keepFrom, array, 0, end - keepFrom);
+                    base += keepFrom;
+                    searchFrom -= keepFrom;
+                    end -= keepFrom;
+                    lineStart -= keepFrom;
+                } else {
+                    grow();
+                }
+            }
+
+            buffer.limit(array.length).position(end);
+            int read = channel.read(buffer);
+            if (read < 0) {
+                if (lineStart < end) {
+                    handler.onLine(buffer.limit(end), lineStart, end - lineStart, base + lineStart);
+                }
+                return;
+            }
+            end += read;
+
+            buffer.limit(end);
+            int newline;
+            while ((newline = ByteSearch.indexOf(buffer, searchFrom, end, (byte) '\n')) >= 0) {
+                if (!handler.onLine(buffer, lineStart, newline - lineStart, base + lineStart)) {
+                    return;
+                }
+                lineStart = newline + 1;
+                searchFrom = lineStart;
+            }
+            searchFrom = end;
+        }
+    }
+
+    private void grow() {
+        byte[] grown = new byte[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        array = grown;
+        buffer = ByteBuffer.wrap(array);
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.ByteSearch;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Splits a large file into lines by mapping it in fixed-size windows and
+ * searching the mapped bytes in place. A line cut by the end of a window is
+ * picked up again at the start of the next one; a window that holds no
+ * complete line is doubled until it does. Earlier lines the handler asks to
+ * keep are mapped again ahead of the window.
+ */
+public final class MappedFileScanner {
+
+    public static final long DEFAULT_THRESHOLD = 1L << 20;
+    public static final long DEFAULT_WINDOW_SIZE = 1L << 26;
+
+    private final long threshold;
+    private final long windowSize;
+
+    public MappedFileScanner() {
+        this(DEFAULT_THRESHOLD, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileScanner(long threshold, long windowSize) {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window size must be between 1 and " + Integer.MAX_VALUE + ": " + windowSize);
+        }
+        this.threshold = threshold;
+        this.windowSize = windowSize;
+    }
+
+    public boolean accepts(long fileSize) {
+        return fileSize >= threshold;
+    }
+
+    public void scan(FileChannel channel, LineHandler handler) throws IOException {
+        long size = channel.size();
+        // Input position of the first line not yet handed out.
+        long next = 0;
+        long window = windowSize;
+        while (next < size) {
+            // Earlier lines the handler still needs are mapped again at the start of the window.
+            long position = Math.max(0, Math.min(next, handler.retainFrom()));
+            long span = Math.min(next - position + window, size - position);
+            if (span > Integer.MAX_VALUE) {
+                throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + position);
+            }
+            int length = (int) span;
+            boolean lastWindow = position + length == size;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            int firstLine = (int) (next - position);
+            int lineStart = firstLine;
+            int newline;
+            while ((newline = ByteSearch.indexOf(mapped, lineStart, length, (byte) '\n')) >= 0) {
+                if (!handler.onLine(mapped, lineStart, newline - lineStart, position + lineStart)) {
+                    return;
+                }
+                lineStart = newline + 1;
+            }
+
+            if (lastWindow) {
+                if (lineStart < length) {
+                    handler.onLine(mapped, lineStart, length - lineStart, position + lineStart);
+                }
+                return;
+            }
+            if (lineStart == firstLine) {
+                if (window == Integer.MAX_VALUE) {
+                    throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + next);
+                }
+                window = Math.min(window * 2, Integer.MAX_VALUE);
+            } else {
+                window = windowSize;
+            }
+            next = position + lineStart;
+        }
+    }
+
+}
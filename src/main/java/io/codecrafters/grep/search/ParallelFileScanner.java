@@ -0,0 +1,181 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.ByteSearch;
+import io.codecrafters.grep.matcher.Matcher;
+import io.codecrafters.grep.matcher.RegexPattern;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Searches a large file by splitting it into line-aligned chunks that are
+ * mapped and matched concurrently on a {@link ForkJoinPool}. Each chunk is
+ * matched with a matcher acquired from the shared {@link RegexPattern} and
+ * handed back afterwards, so DFA state stays warm across chunks without
+ * pool threads holding on to it. Workers only record where the matching
+ * lines are; the calling thread then replays those lines to the handler in
+ * file order. The number of chunks in flight is bounded, so results never
+ * pile up for the whole file.
+ */
+public final class ParallelFileScanner {
+
+    public static final long DEFAULT_THRESHOLD = 1L << 26;
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 25;
+
+    private static final int BOUNDARY_PROBE_SIZE = 1 << 13;
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+    private final int chunkSize;
+
+    public ParallelFileScanner() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelFileScanner(ForkJoinPool pool, long threshold, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+    }
+
+    public boolean accepts(long fileSize) {
+        return pool.getParallelism() > 1 && fileSize >= threshold;
+    }
+
+    /**
+     * Hands every line of the file that matches {@code pattern} to
+     * {@code handler}, in file order, on the calling thread. When the handler
+     * asks to stop, chunks still in flight are cancelled and no more are
+     * mapped.
+     */
+    public void scan(FileChannel channel, RegexPattern pattern, LineHandler handler) throws IOException {
+        scan(channel, pattern, false, handler);
+    }
+
+    /**
+     * Like {@link #scan(FileChannel, RegexPattern, LineHandler)}, but hands
+     * out the lines that do not match instead when {@code invert} is set.
+     */
+    public void scan(FileChannel channel, RegexPattern pattern, boolean invert, LineHandler handler) throws IOException {
+        long size = channel.size();
+        int maxInFlight = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        long chunkStart = 0;
+        try {
+            while (chunkStart < size || !inFlight.isEmpty()) {
+                if (chunkStart < size && inFlight.size() < maxInFlight) {
+                    long chunkEnd = nextLineStart(channel, Math.min(size, chunkStart + chunkSize), size, probe);
+                    long start = chunkStart;
+                    inFlight.addLast(pool.submit(() -> matchChunk(channel, pattern, invert, start, chunkEnd)));
+                    chunkStart = chunkEnd;
+                    continue;
+                }
+                if (!inFlight.removeFirst().join().replay(handler)) {
+                    return;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            inFlight.forEach(task -> task.cancel(false));
+        }
+    }
+
+    private static ChunkResult matchChunk(FileChannel channel, RegexPattern pattern, boolean invert, long start, long end) {
+        Matcher matcher = pattern.acquireMatcher();
+        try {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + start);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            ChunkResult result = new ChunkResult(mapped, start);
+
+            int limit = (int) length;
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int newline = ByteSearch.indexOf(mapped, lineStart, limit, (byte) '\n');
+                int lineEnd = newline < 0 ? limit : newline;
+                if (matcher.matches(mapped, lineStart, lineEnd - lineStart) != invert) {
+                    result.add(lineStart, lineEnd - lineStart);
+                }
+                lineStart = lineEnd + 1;
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pattern.releaseMatcher(matcher);
+        }
+    }
+
+    // Returns the first line start at or after position, reading ahead until a newline is found.
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        if (position == 0 || position >= size) {
+            return position;
+        }
+        long offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                break;
+            }
+            int newline = ByteSearch.indexOf(probe, 0, read, (byte) '\n');
+            if (newline >= 0) {
+                return offset + newline + 1;
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static final class ChunkResult {
+
+        private final MappedByteBuffer buffer;
+        private final long position;
+        private int[] offsets = new int[64];
+        private int[] lengths = new int[64];
+        private int count;
+
+        ChunkResult(MappedByteBuffer buffer, long position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        void add(int offset, int length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+
+        boolean replay(LineHandler handler) throws IOException {
+            for (int i = 0; i < count; i++) {
+                if (!handler.onLine(buffer, offsets[i], lengths[i], position + offsets[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches every regular file below a set of roots, one virtual thread per
+ * file. A semaphore caps how many files are open at once, which also stops
+ * the directory walk from running arbitrarily far ahead of the searches.
+ * Searchers, and with them their warm DFA caches and buffers, are pooled and
+ * reused across files; the pool keeps one per core, however many files are
+ * open, and closes the rest as they finish. A root with a {@link TrigramIndex} only has the files
+ * the index cannot rule out searched.
+ */
+public final class RecursiveSearcher {
+
+    public static final int DEFAULT_MAX_OPEN_FILES = 256;
+
+    static final int MAX_IDLE_SEARCHERS = Runtime.getRuntime().availableProcessors();
+
+    @FunctionalInterface
+    public interface ErrorHandler {
+
+        void onError(Path file, IOException e);
+
+    }
+
+    @FunctionalInterface
+    private interface FileTask {
+
+        // Returns false once no further files need to be searched.
+        boolean accept(Path file) throws InterruptedException;
+
+    }
+
+    private final RegexPattern pattern;
+    private final SearchOptions options;
+    private final OutputStream out;
+    private final ErrorHandler errorHandler;
+    private final Semaphore openFiles;
+    private final BlockingQueue<PooledSearcher> idleSearchers = new ArrayBlockingQueue<>(MAX_IDLE_SEARCHERS);
+
+    public RecursiveSearcher(RegexPattern pattern, OutputStream out, ErrorHandler errorHandler) {
+        this(pattern, out, errorHandler, DEFAULT_MAX_OPEN_FILES);
+    }
+
+    public RecursiveSearcher(RegexPattern pattern, OutputStream out, ErrorHandler errorHandler, int maxOpenFiles) {
+        this(pattern, SearchOptions.DEFAULT, out, errorHandler, maxOpenFiles);
+    }
+
+    public RecursiveSearcher(RegexPattern pattern, SearchOptions options, OutputStream out,
+                             ErrorHandler errorHandler, int maxOpenFiles) {
+        if (maxOpenFiles <= 0) {
+            throw new IllegalArgumentException("Open file limit must be positive: " + maxOpenFiles);
+        }
+        this.pattern = pattern;
+        this.options = options;
+        this.out = out;
+        this.errorHandler = errorHandler;
+        this.openFiles = new Semaphore(maxOpenFiles);
+    }
+
+    /**
+     * Searches every file below the roots, prefixing each output line with
+     * the file's path, relativized against {@code base} when one is given.
+     *
+     * @return whether any line matched
+     */
+    public boolean search(List<Path> roots, Path base) throws InterruptedException {
+        return search(roots, base, Path.of(""));
+    }
+
+    /**
+     * Like {@link #search(List, Path)}, but relative roots are resolved
+     * against {@code workingDirectory}. Without a base, paths are still
+     * printed as they would be below the roots as given.
+     */
+    public boolean search(List<Path> roots, Path base, Path workingDirectory) throws InterruptedException {
+        AtomicBoolean matched = new AtomicBoolean();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path root : roots) {
+                // With -q the first match settles the answer, so the walk stops there.
+                if (options.quiet() && matched.get()) {
+                    break;
+                }
+                Path resolved = workingDirectory.resolve(root);
+                walk(resolved, indexQuery(resolved), file -> {
+                    openFiles.acquire();
+                    if (options.quiet() && matched.get()) {
+                        openFiles.release();
+                        return false;
+                    }
+                    executor.execute(() -> {
+                        try {
+                            if (!(options.quiet() && matched.get())
+                                    && searchFile(file, base == null
+                                            ? root.resolve(resolved.relativize(file)) : base.relativize(file))) {
+                                matched.set(true);
+                            }
+                        } finally {
+                            openFiles.release();
+                        }
+                    });
+                    return true;
+                });
+            }
+        }
+        // Every task is done, so the searchers' matchers can go back to the pattern for later searches.
+        for (PooledSearcher pooled; (pooled = idleSearchers.poll()) != null; ) {
+            pooled.searcher.close();
+        }
+        return matched.get();
+    }
+
+    private boolean searchFile(Path file, Path label) {
+        PooledSearcher pooled = idleSearchers.poll();
+        if (pooled == null) {
+            pooled = new PooledSearcher(pattern, options, out);
+        }
+        try {
+            return pooled.searcher.search(file, label.toString());
+        } catch (IOException e) {
+            errorHandler.onError(file, e);
+            return false;
+        } finally {
+            try {
+                pooled.output.flush();
+            } catch (IOException e) {
+                errorHandler.onError(file, e);
+            }
+            if (!idleSearchers.offer(pooled)) {
+                pooled.searcher.close();
+            }
+        }
+    }
+
+    // Indexes only rule out files that print nothing, and with -v or -c every file can print.
+    private TrigramIndex.Query indexQuery(Path root) {
+        if (options.invert() || options.countOnly() || !TrigramIndex.exists(root)) {
+            return null;
+        }
+        try {
+            return TrigramIndex.open(root).query(pattern.requiredLiterals());
+        } catch (IOException e) {
+            errorHandler.onError(root.resolve(TrigramIndex.FILE_NAME), e);
+            return null;
+        }
+    }
+
+    private void walk(Path root, TrigramIndex.Query query, FileTask task) throws InterruptedException {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile() && !file.getFileName().toString().equals(TrigramIndex.FILE_NAME)
+                            && (query == null || query.mayMatch(file, attributes))) {
+                        try {
+                            if (!task.accept(file)) {
+                                return FileVisitResult.TERMINATE;
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    errorHandler.onError(file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            errorHandler.onError(root, e);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Interrupted while walking " + root);
+        }
+    }
+
+    private static final class PooledSearcher {
+
+        private final LineAtomicOutputStream output;
+        private final Searcher searcher;
+
+        PooledSearcher(RegexPattern pattern, SearchOptions options, OutputStream out) {
+            this.output = new LineAtomicOutputStream(out);
+            this.searcher = new Searcher(pattern, options, output);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package io.codecrafters.grep.search;
+
+/**
+ * Output settings for a {@link Searcher}. Instances are immutable; use
+ * {@link #builder()} to change anything from the defaults, which print each
+ * matching line as it is.
+ */
+public final class SearchOptions {
+
+    public static final SearchOptions DEFAULT = builder().build();
+
+    private final boolean onlyMatching;
+    private final boolean byteOffset;
+    private final boolean countOnly;
+    private final boolean quiet;
+    private final boolean listFiles;
+    private final long maxCount;
+    private final boolean invert;
+    private final int beforeContext;
+    private final int afterContext;
+
+    private SearchOptions(Builder builder) {
+        this.onlyMatching = builder.onlyMatching;
+        this.byteOffset = builder.byteOffset;
+        this.countOnly = builder.countOnly;
+        this.quiet = builder.quiet;
+        this.listFiles = builder.listFiles;
+        this.maxCount = builder.maxCount;
+        this.invert = builder.invert;
+        this.beforeContext = builder.beforeContext;
+        this.afterContext = builder.afterContext;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Whether each match is printed on its own line instead of the whole line (-o).
+     */
+    public boolean onlyMatching() {
+        return onlyMatching;
+    }
+
+    /**
+     * Whether output is prefixed with the byte offset of the line, or of the
+     * match with -o, from the start of the input (-b).
+     */
+    public boolean byteOffset() {
+        return byteOffset;
+    }
+
+    /**
+     * Whether only the number of matching lines is printed per input (-c).
+     */
+    public boolean countOnly() {
+        return countOnly;
+    }
+
+    /**
+     * Whether nothing is printed and searching stops at the first match (-q).
+     */
+    public boolean quiet() {
+        return quiet;
+    }
+
+    /**
+     * Whether only the names of inputs with a match are printed, each input
+     * being read only up to its first match (-l).
+     */
+    public boolean listFiles() {
+        return listFiles;
+    }
+
+    /**
+     * The number of matching lines after which an input is no longer read (-m).
+     */
+    public long maxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Whether the lines that do not match are the ones selected (-v).
+     */
+    public boolean invert() {
+        return invert;
+    }
+
+    /**
+     * The number of lines printed before each selected line (-B).
+     */
+    public int beforeContext() {
+        return beforeContext;
+    }
+
+    /**
+     * The number of lines printed after each selected line (-A).
+     */
+    public int afterContext() {
+        return afterContext;
+    }
+
+    /**
+     * Whether the search stops at an early match (-q, -l or -m), so reading
+     * ahead of the selected lines is wasted work.
+     */
+    public boolean stopsEarly() {
+        return quiet || listFiles || maxCount != Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether context lines are printed, which only happens when whole lines are.
+     */
+    public boolean printsContext() {
+        return (beforeContext > 0 || afterContext > 0) && !onlyMatching && !countOnly && !quiet && !listFiles;
+    }
+
+    public static final class Builder {
+
+        private boolean onlyMatching;
+        private boolean byteOffset;
+        private boolean countOnly;
+        private boolean quiet;
+        private boolean listFiles;
+        private long maxCount = Long.MAX_VALUE;
+        private boolean invert;
+        private int beforeContext;
+        private int afterContext;
+
+        private Builder() {
+        }
+
+        public Builder onlyMatching(boolean onlyMatching) {
+            this.onlyMatching = onlyMatching;
+            return this;
+        }
+
+        public Builder byteOffset(boolean byteOffset) {
+            this.byteOffset = byteOffset;
+            return this;
+        }
+
+        public Builder countOnly(boolean countOnly) {
+            this.countOnly = countOnly;
+            return this;
+        }
+
+        public Builder quiet(boolean quiet) {
+            this.quiet = quiet;
+            return this;
+        }
+
+        public Builder listFiles(boolean listFiles) {
+            this.listFiles = listFiles;
+            return this;
+        }
+
+        public Builder maxCount(long maxCount) {
+            if (maxCount < 0) {
+                throw new IllegalArgumentException("Max count must not be negative: " + maxCount);
+            }
+            this.maxCount = maxCount;
+            return this;
+        }
+
+        public Builder invert(boolean invert) {
+            this.invert = invert;
+            return this;
+        }
+
+        public Builder beforeContext(int beforeContext) {
+            if (beforeContext < 0) {
+                throw new IllegalArgumentException("Context length must not be negative: " + beforeContext);
+            }
+            this.beforeContext = beforeContext;
+            return this;
+        }
+
+        public Builder afterContext(int afterContext) {
+            if (afterContext < 0) {
+                throw new IllegalArgumentException("Context length must not be negative: " + afterContext);
+            }
+            this.afterContext = afterContext;
+            return this;
+        }
+
+        public SearchOptions build() {
+            return new SearchOptions(this);
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.Match;
+import io.codecrafters.grep.matcher.Matcher;
+import io.codecrafters.grep.matcher.RegexPattern;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public final class Searcher implements LineHandler, Closeable {
+
+    private final RegexPattern pattern;
+    private final Matcher matcher;
+    private final SearchOptions options;
+    private final OutputStream out;
+    private final LineScanner scanner;
+    private final MappedFileScanner mappedScanner;
+    private final ParallelFileScanner parallelScanner;
+
+    private static final String STDIN_LABEL = "(standard input)";
+    private static final byte[] GROUP_SEPARATOR = "--\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Match match = new Match();
+    private final byte[] digits = new byte[20];
+    private byte[] copyBuffer = new byte[LineScanner.DEFAULT_BUFFER_SIZE];
+    private String label;
+    private byte[] prefix;
+    private boolean matched;
+    private long matchCount;
+    private boolean closed;
+
+    // Before-context: positions and lengths of the latest unprinted lines, oldest at ringStart.
+    private final long[] ringPositions;
+    private final int[] ringLengths;
+    private int ringStart;
+    private int ringSize;
+    private int afterRemaining;
+    // Input position just past the last printed line, or -1 before the input prints one.
+    private long printedEnd;
+    private boolean printedAny;
+
+    public Searcher(RegexPattern pattern, OutputStream out) {
+        this(pattern, SearchOptions.DEFAULT, out);
+    }
+
+    public Searcher(RegexPattern pattern, SearchOptions options, OutputStream out) {
+        this(pattern, options, out, new LineScanner(), new MappedFileScanner(), new ParallelFileScanner());
+    }
+
+    Searcher(RegexPattern pattern, OutputStream out, LineScanner scanner,
+             MappedFileScanner mappedScanner, ParallelFileScanner parallelScanner) {
+        this(pattern, SearchOptions.DEFAULT, out, scanner, mappedScanner, parallelScanner);
+    }
+
+    Searcher(RegexPattern pattern, SearchOptions options, OutputStream out, LineScanner scanner,
+             MappedFileScanner mappedScanner, ParallelFileScanner parallelScanner) {
+        this.pattern = pattern;
+        this.matcher = pattern.acquireMatcher();
+        this.options = options;
+        this.out = out;
+        this.scanner = scanner;
+        this.mappedScanner = mappedScanner;
+        this.parallelScanner = parallelScanner;
+        int ringCapacity = options.printsContext() ? options.beforeContext() : 0;
+        this.ringPositions = new long[ringCapacity];
+        this.ringLengths = new int[ringCapacity];
+    }
+
+    /**
+     * Writes every selected line of the channel to the output, prefixed with
+     * {@code label} when one is given. Reading stops as soon as the options
+     * say no later line can change the output.
+     *
+     * @return whether any line was selected
+     */
+    public boolean search(ReadableByteChannel channel, String label) throws IOException {
+        if (begin(label)) {
+            scanner.scan(channel, this);
+        }
+        return finish();
+    }
+
+    /**
+     * Searches a file, mapping it into memory instead of reading it through
+     * the heap buffer when it is a regular file above the mapping threshold,
+     * and matching its chunks on several cores when it is larger still, no
+     * context lines are needed and the search does not stop at an early match. Gzip files are searched by their
+     * decompressed lines, inflated on a separate thread.
+     *
+     * @return whether any line was selected
+     */
+    public boolean search(Path file, String label) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            if (!begin(label)) {
+                return finish();
+            }
+            boolean regularFile = Files.isRegularFile(file);
+            if (regularFile && GzipChannel.isGzip(channel)) {
+                try (GzipChannel inflated = new GzipChannel(channel)) {
+                    scanner.scan(inflated, this);
+                }
+            } else if (regularFile && !options.printsContext() && !options.stopsEarly()
+                    && parallelScanner.accepts(channel.size())) {
+                parallelScanner.scan(channel, pattern, options.invert(), this::emit);
+            } else if (regularFile && mappedScanner.accepts(channel.size())) {
+                mappedScanner.scan(channel, this);
+            } else {
+                scanner.scan(channel, this);
+            }
+            return finish();
+        }
+    }
+
+    /**
+     * Hands the matcher back to the pattern, so a later search with the same
+     * pattern starts with its DFA cache warm. The searcher is not used after.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pattern.releaseMatcher(matcher);
+        }
+    }
+
+    @Override
+    public boolean onLine(ByteBuffer buffer, int offset, int length, long position) throws IOException {
+        boolean selected = matcher.matches(buffer, offset, length) != options.invert();
+        if (options.printsContext()) {
+            return onContextLine(selected, buffer, offset, length, position);
+        }
+        if (selected) {
+            return emit(buffer, offset, length, position);
+        }
+        return true;
+    }
+
+    @Override
+    public long retainFrom() {
+        return ringSize == 0 ? Long.MAX_VALUE : ringPositions[ringStart];
+    }
+
+    // Prints a selected line after the lines kept for its before-context, or a line of after-context.
+    // Any other line replaces the oldest kept one. After the -m limit only the after-context is printed.
+    private boolean onContextLine(boolean selected, ByteBuffer buffer, int offset, int length, long position)
+            throws IOException {
+        if (selected && matchCount < options.maxCount()) {
+            writeBeforeContext(buffer, position - offset);
+            emit(buffer, offset, length, position);
+            afterRemaining = options.afterContext();
+        } else if (afterRemaining > 0) {
+            afterRemaining--;
+            writeOutputLine(buffer, offset, length, position, (byte) '-');
+        } else if (ringPositions.length > 0) {
+            if (ringSize == ringPositions.length) {
+                ringStart = (ringStart + 1) % ringPositions.length;
+                ringSize--;
+            }
+            int slot = (ringStart + ringSize) % ringPositions.length;
+            ringPositions[slot] = position;
+            ringLengths[slot] = length;
+            ringSize++;
+        }
+        return matchCount < options.maxCount() || afterRemaining > 0;
+    }
+
+    // Kept lines lie in the same buffer as the current line; bufferBase maps positions to indices.
+    private void writeBeforeContext(ByteBuffer buffer, long bufferBase) throws IOException {
+        for (int i = 0; i < ringSize; i++) {
+            int slot = (ringStart + i) % ringPositions.length;
+            writeOutputLine(buffer, (int) (ringPositions[slot] - bufferBase), ringLengths[slot], ringPositions[slot], (byte) '-');
+        }
+        ringStart = 0;
+        ringSize = 0;
+    }
+
+    // Handles a selected line; returns whether the rest of the input still needs to be read.
+    private boolean emit(ByteBuffer buffer, int offset, int length, long position) throws IOException {
+        matched = true;
+        matchCount++;
+        if (options.quiet()) {
+            return false;
+        }
+        if (options.listFiles()) {
+            out.write((label == null ? STDIN_LABEL : label).getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+            return false;
+        }
+        if (options.countOnly()) {
+            return matchCount < options.maxCount();
+        }
+        if (options.onlyMatching()) {
+            emitMatches(buffer, offset, offset + length, position - offset);
+        } else {
+            writeOutputLine(buffer, offset, length, position, (byte) ':');
+        }
+        return matchCount < options.maxCount();
+    }
+
+    // Writes every non-empty match of the line; bufferBase maps buffer indices to input positions.
+    private void emitMatches(ByteBuffer buffer, int lineStart, int to, long bufferBase) throws IOException {
+        int from = lineStart;
+        while (from <= to && matcher.find(buffer, lineStart, from, to, match)) {
+            if (match.isEmpty()) {
+                from = nextCharStart(buffer, match.end() + 1, to);
+                continue;
+            }
+            writeOutputLine(buffer, match.start(), match.end() - match.start(), bufferBase + match.start(), (byte) ':');
+            from = match.end();
+        }
+    }
+
+    // Selected lines are marked with ':' and context lines with '-'; "--" separates non-adjacent groups.
+    private void writeOutputLine(ByteBuffer buffer, int offset, int length, long position, byte separator)
+            throws IOException {
+        if (options.printsContext()) {
+            if (printedAny && position != printedEnd) {
+                out.write(GROUP_SEPARATOR);
+            }
+            printedAny = true;
+            printedEnd = position + length + 1;
+        }
+        if (prefix != null) {
+            out.write(prefix);
+            out.write(separator);
+        }
+        if (options.byteOffset()) {
+            writeNumber(position);
+            out.write(separator);
+        }
+        write(buffer, offset, length);
+        out.write('\n');
+    }
+
+    private static int nextCharStart(ByteBuffer buffer, int index, int to) {
+        while (index < to && (buffer.get(index) & 0xC0) == 0x80) {
+            index++;
+        }
+        return index;
+    }
+
+    private void writeNumber(long value) throws IOException {
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        out.write(digits, start, digits.length - start);
+    }
+
+    // Resets per-input state; returns false when the input need not be read at all (-m 0).
+    private boolean begin(String label) {
+        this.label = label;
+        prefix = label == null ? null : label.getBytes(StandardCharsets.UTF_8);
+        matched = false;
+        matchCount = 0;
+        ringStart = 0;
+        ringSize = 0;
+        afterRemaining = 0;
+        printedEnd = -1;
+        return options.maxCount() > 0;
+    }
+
+    private boolean finish() throws IOException {
+        if (options.countOnly() && !options.quiet() && !options.listFiles()) {
+            if (prefix != null) {
+                out.write(prefix);
+                out.write(':');
+            }
+            writeNumber(matchCount);
+            out.write('\n');
+        }
+        return matched;
+    }
+
+    private void write(ByteBuffer buffer, int offset, int length) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + offset, length);
+            return;
+        }
+        if (copyBuffer.length < length) {
+            copyBuffer = new byte[Math.max(length, copyBuffer.length * 2)];
+        }
+        buffer.get(offset, copyBuffer, 0, length);
+        out.write(copyBuffer, 0, length);
+    }
+
+}
@@ -0,0 +1,493 @@
+package io.codecrafters.grep.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Trigram index over the files below a directory, stored in that directory
+ * as {@value #FILE_NAME}. For every three-byte sequence found within a line
+ * the index lists the files containing it, so a search for a pattern with
+ * required literals only needs to read the files holding all of their
+ * trigrams. Gzip files are indexed by their decompressed content.
+ *
+ * <p>The file holds a header, a table of indexed files with the size and
+ * modification time they had, a table of trigrams sorted for binary search,
+ * and the posting lists as varint-encoded deltas of file numbers. It is
+ * memory-mapped when opened and only the file table is decoded up front.
+ * Files changed or added since the index was built are never ruled out.
+ */
+public final class TrigramIndex {
+
+    public static final String FILE_NAME = ".grep-index";
+
+    private static final int MAGIC = 0x47524958;
+    private static final int VERSION = 1;
+    private static final int TRIGRAM_ENTRY_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int RUN_PAIRS = 1 << 22;
+
+    private final Path root;
+    private final MappedByteBuffer mapped;
+    private final Map<String, IndexedFile> files;
+    private final int trigramCount;
+    private final int trigramTable;
+    private final int postings;
+
+    private TrigramIndex(Path root, MappedByteBuffer mapped) throws IOException {
+        this.root = root;
+        this.mapped = mapped;
+        if (mapped.limit() < 3 * Integer.BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("Not a trigram index: " + root.resolve(FILE_NAME));
+        }
+        int fileCount = mapped.getInt(8);
+        int offset = 12;
+        files = HashMap.newHashMap(fileCount);
+        for (int id = 0; id < fileCount; id++) {
+            int pathLength = mapped.getInt(offset);
+            byte[] path = new byte[pathLength];
+            mapped.get(offset + Integer.BYTES, path);
+            offset += Integer.BYTES + pathLength;
+            files.put(new String(path, StandardCharsets.UTF_8),
+                    new IndexedFile(id, mapped.getLong(offset), mapped.getLong(offset + Long.BYTES)));
+            offset += 2 * Long.BYTES;
+        }
+        trigramCount = mapped.getInt(offset);
+        trigramTable = offset + Integer.BYTES;
+        // One more entry ends the table, holding the end offset of the last posting list.
+        postings = trigramTable + (trigramCount + 1) * TRIGRAM_ENTRY_BYTES;
+    }
+
+    public static boolean exists(Path root) {
+        return Files.isRegularFile(root.resolve(FILE_NAME));
+    }
+
+    public static TrigramIndex open(Path root) throws IOException {
+        try (FileChannel channel = FileChannel.open(root.resolve(FILE_NAME))) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Trigram index larger than " + Integer.MAX_VALUE + " bytes: " + root.resolve(FILE_NAME));
+            }
+            return new TrigramIndex(root, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Indexes every regular file below the directory, replacing any earlier
+     * index once the new one is complete. Files that cannot be read are
+     * left out, so searches always read them.
+     */
+    public static void build(Path root) throws IOException {
+        build(root, RUN_PAIRS);
+    }
+
+    // The (trigram, file) pairs are sorted in runs of at most runPairs that are spilled beside the index and merged.
+    static void build(Path root, int runPairs) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Not a directory");
+        }
+        List<String> paths = new ArrayList<>();
+        List<BasicFileAttributes> attributes = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes fileAttributes) {
+                if (fileAttributes.isRegularFile() && !file.getFileName().toString().equals(FILE_NAME)) {
+                    paths.add(pathKey(root, file));
+                    attributes.add(fileAttributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        List<Path> temporaries = new ArrayList<>();
+        try {
+            Postings postings = new Postings(root, runPairs, temporaries);
+            TrigramSet trigrams = new TrigramSet();
+            List<String> indexedPaths = new ArrayList<>();
+            List<BasicFileAttributes> indexedAttributes = new ArrayList<>();
+            for (int i = 0; i < paths.size(); i++) {
+                try {
+                    collectTrigrams(root.resolve(paths.get(i)), trigrams);
+                } catch (IOException e) {
+                    trigrams.clear();
+                    continue;
+                }
+                int id = indexedPaths.size();
+                indexedPaths.add(paths.get(i));
+                indexedAttributes.add(attributes.get(i));
+                for (int t = 0; t < trigrams.count; t++) {
+                    postings.add(trigrams.values[t], id);
+                }
+                trigrams.clear();
+            }
+            postings.spill();
+
+            Path table = temporary(root, temporaries);
+            Path lists = temporary(root, temporaries);
+            int trigramCount;
+            try (DataOutputStream tableOut = output(table); DataOutputStream listsOut = output(lists)) {
+                trigramCount = postings.merge(tableOut, listsOut);
+            }
+            Path index = temporary(root, temporaries);
+            try (DataOutputStream out = output(index)) {
+                writeFiles(out, indexedPaths, indexedAttributes);
+                out.writeInt(trigramCount);
+                Files.copy(table, out);
+                out.writeInt(0);
+                out.writeLong(Files.size(lists));
+                Files.copy(lists, out);
+            }
+            Files.move(index, root.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            for (Path temporary : temporaries) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private static Path temporary(Path root, List<Path> temporaries) throws IOException {
+        Path temporary = Files.createTempFile(root, FILE_NAME, ".tmp");
+        temporaries.add(temporary);
+        return temporary;
+    }
+
+    private static DataOutputStream output(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), READ_BUFFER_SIZE));
+    }
+
+    /**
+     * Returns a query for files that may contain all the literals. A query
+     * for literals with no trigram between them, such as an empty list,
+     * rules nothing out.
+     */
+    public Query query(List<String> literals) {
+        BitSet candidates = null;
+        for (String literal : literals) {
+            byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i + 2 < bytes.length; i++) {
+                BitSet containing = lookup(trigram(bytes[i], bytes[i + 1], bytes[i + 2]));
+                if (candidates == null) {
+                    candidates = containing;
+                } else {
+                    candidates.and(containing);
+                }
+            }
+        }
+        return new Query(candidates);
+    }
+
+    int indexedFileCount() {
+        return files.size();
+    }
+
+    // Returns the files whose posting list holds the trigram, found by binary search of the table.
+    private BitSet lookup(int trigram) {
+        BitSet containing = new BitSet(files.size());
+        int low = 0;
+        int high = trigramCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = trigramTable + middle * TRIGRAM_ENTRY_BYTES;
+            int value = mapped.getInt(entry);
+            if (value < trigram) {
+                low = middle + 1;
+            } else if (value > trigram) {
+                high = middle - 1;
+            } else {
+                int from = postings + (int) mapped.getLong(entry + Integer.BYTES);
+                int to = postings + (int) mapped.getLong(entry + TRIGRAM_ENTRY_BYTES + Integer.BYTES);
+                decodePostings(from, to, containing);
+                return containing;
+            }
+        }
+        return containing;
+    }
+
+    private void decodePostings(int from, int to, BitSet containing) {
+        int position = from;
+        int id = -1;
+        while (position < to) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = mapped.get(position++);
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += delta;
+            containing.set(id);
+        }
+    }
+
+    private static void collectTrigrams(Path file, TrigramSet trigrams) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            if (GzipChannel.isGzip(channel)) {
+                try (GzipChannel inflated = new GzipChannel(channel)) {
+                    collectTrigrams(inflated, trigrams);
+                }
+            } else {
+                collectTrigrams(channel, trigrams);
+            }
+        }
+    }
+
+    // Slides a three-byte window over the input; windows holding a newline are skipped.
+    private static void collectTrigrams(ReadableByteChannel channel, TrigramSet trigrams) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        int window = 0;
+        int filled = 0;
+        while (channel.read(buffer.clear()) >= 0) {
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    filled = 0;
+                    continue;
+                }
+                window = ((window << 8) | (bytes[i] & 0xFF)) & 0xFFFFFF;
+                if (++filled >= 3) {
+                    trigrams.add(window);
+                }
+            }
+        }
+    }
+
+    private static void writeFiles(DataOutputStream out, List<String> paths, List<BasicFileAttributes> attributes)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            byte[] path = paths.get(i).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(path.length);
+            out.write(path);
+            out.writeLong(attributes.get(i).size());
+            out.writeLong(attributes.get(i).lastModifiedTime().toMillis());
+        }
+    }
+
+    private static String pathKey(Path root, Path file) {
+        return root.relativize(file).toString().replace(root.getFileSystem().getSeparator(), "/");
+    }
+
+    private static int trigram(byte first, byte second, byte third) {
+        return ((first & 0xFF) << 16) | ((second & 0xFF) << 8) | (third & 0xFF);
+    }
+
+    /**
+     * Answers whether a file below the index's directory may hold a line
+     * with every literal of the query.
+     */
+    public final class Query {
+
+        // Null when the literals give no trigram to rule anything out with.
+        private final BitSet candidates;
+
+        private Query(BitSet candidates) {
+            this.candidates = candidates;
+        }
+
+        public boolean mayMatch(Path file, BasicFileAttributes attributes) {
+            if (candidates == null || !file.startsWith(root)) {
+                return true;
+            }
+            IndexedFile indexed = files.get(pathKey(root, file));
+            if (indexed == null || indexed.size != attributes.size()
+                    || indexed.modified != attributes.lastModifiedTime().toMillis()) {
+                return true;
+            }
+            return candidates.get(indexed.id);
+        }
+    }
+
+    private record IndexedFile(int id, long size, long modified) {
+    }
+
+    // Distinct trigrams of one file, kept as a bitmap over all 2^24 values plus the list of those set.
+    private static final class TrigramSet {
+
+        private final long[] bits = new long[1 << 18];
+        private int[] values = new int[1024];
+        private int count;
+
+        void add(int trigram) {
+            long mask = 1L << trigram;
+            if ((bits[trigram >>> 6] & mask) != 0) {
+                return;
+            }
+            bits[trigram >>> 6] |= mask;
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = trigram;
+        }
+
+        void clear() {
+            for (int i = 0; i < count; i++) {
+                bits[values[i] >>> 6] = 0;
+            }
+            count = 0;
+        }
+    }
+
+    /**
+     * (trigram, file) pairs packed into longs. They are gathered in a buffer
+     * of bounded size that is sorted and spilled to a temporary file as a run
+     * whenever it fills, so building an index of a corpus of any size takes
+     * the same memory. The runs are merged into the posting lists at the end.
+     */
+    private static final class Postings {
+
+        private final Path root;
+        private final int runPairs;
+        private final List<Path> temporaries;
+        private final List<Path> runs = new ArrayList<>();
+        private long[] pairs = new long[1024];
+        private int count;
+
+        Postings(Path root, int runPairs, List<Path> temporaries) {
+            this.root = root;
+            this.runPairs = runPairs;
+            this.temporaries = temporaries;
+        }
+
+        void add(int trigram, int id) throws IOException {
+            if (count == runPairs) {
+                spill();
+            } else if (count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, (int) Math.min(runPairs, 2L * count));
+            }
+            pairs[count++] = ((long) trigram << 32) | id;
+        }
+
+        void spill() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            Arrays.sort(pairs, 0, count);
+            Path run = temporary(root, temporaries);
+            try (DataOutputStream out = output(run)) {
+                for (int i = 0; i < count; i++) {
+                    out.writeLong(pairs[i]);
+                }
+            }
+            runs.add(run);
+            count = 0;
+        }
+
+        /**
+         * Merges the spilled runs, writing a table entry of trigram and list
+         * offset for each trigram and its posting list as varint deltas of
+         * file numbers. Returns the number of trigrams.
+         */
+        int merge(DataOutputStream table, DataOutputStream lists) throws IOException {
+            PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, runs.size()), Comparator.comparingLong(Run::head));
+            try {
+                for (Path path : runs) {
+                    Run run = new Run(path);
+                    if (run.advance()) {
+                        queue.add(run);
+                    } else {
+                        run.close();
+                    }
+                }
+                int trigramCount = 0;
+                long listsSize = 0;
+                int previousTrigram = -1;
+                int previousId = -1;
+                while (!queue.isEmpty()) {
+                    Run run = queue.poll();
+                    int trigram = (int) (run.head >>> 32);
+                    int id = (int) run.head;
+                    if (trigram != previousTrigram) {
+                        table.writeInt(trigram);
+                        table.writeLong(listsSize);
+                        trigramCount++;
+                        previousTrigram = trigram;
+                        previousId = -1;
+                    }
+                    listsSize += writeVarint(lists, id - previousId);
+                    previousId = id;
+                    if (run.advance()) {
+                        queue.add(run);
+                    } else {
+                        run.close();
+                    }
+                }
+                return trigramCount;
+            } finally {
+                for (Run run : queue) {
+                    run.close();
+                }
+            }
+        }
+
+        private static int writeVarint(DataOutputStream out, int value) throws IOException {
+            int bytes = 1;
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+                bytes++;
+            }
+            out.write(value);
+            return bytes;
+        }
+    }
+
+    // A spilled run being read back in order, positioned on its smallest unread pair.
+    private static final class Run implements Closeable {
+
+        private final DataInputStream in;
+        private long head;
+
+        Run(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), READ_BUFFER_SIZE));
+        }
+
+        long head() {
+            return head;
+        }
+
+        boolean advance() throws IOException {
+            try {
+                head = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package io.codecrafters.grep;
+
+import io.codecrafters.grep.cli.Options;
+import io.codecrafters.grep.matcher.PatternCache;
+import io.codecrafters.grep.parser.PatternFlag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for running searches in a daemon over a Unix domain socket.
+ * Each test starts its own daemon in a temporary directory.
+ */
+@DisplayName("Daemon Tests")
+class DaemonTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path socket;
+    private DaemonServer server;
+    private Thread serving;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void startDaemon() throws IOException {
+        socket = tempDir.resolve("grep.sock");
+        server = DaemonServer.bind(socket);
+        serving = Thread.ofPlatform().start(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    @AfterEach
+    void stopDaemon() throws IOException, InterruptedException {
+        server.close();
+        serving.join();
+    }
+
+    private int run(String stdin, String... args) throws IOException {
+        return DaemonClient.run(socket, List.of(args), Set.of(), tempDir,
+                stdin == null ? null : new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)), out, err);
+    }
+
+    @Nested
+    @DisplayName("Searching")
+    class Searching {
+
+        @Test
+        @DisplayName("Files should be resolved against the client's directory and labelled as given")
+        void testSearchesFiles() throws IOException {
+            Files.createDirectories(tempDir.resolve("logs"));
+            Files.writeString(tempDir.resolve("logs/a.log"), "ok\nerror 1\n");
+            Files.writeString(tempDir.resolve("b.log"), "error 2\n");
+
+            assertEquals(0, run(null, "-E", "error \\d", "logs/a.log", "b.log"));
+            assertEquals("logs/a.log:error 1\nb.log:error 2\n", out.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Recursive searches should print paths as they would be printed locally")
+        void testRecursive() throws IOException {
+            Files.createDirectories(tempDir.resolve("logs/old"));
+            Files.writeString(tempDir.resolve("logs/old/a.log"), "error 1\n");
+
+            assertEquals(0, run(null, "-rE", "error", "logs"));
+            assertEquals("logs/old/a.log:error 1\n", out.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Standard input should be forwarded to the daemon")
+        void testStdin() throws IOException {
+            String input = "line\n".repeat(20_000) + "needle\n";
+
+            assertEquals(0, run(input, "-cE", "line"));
+            assertEquals("20000\n", out.toString(StandardCharsets.UTF_8));
+            out.reset();
+            assertEquals(1, run("", "-E", "needle"));
+            assertEquals("", out.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Locale flags should come from the client")
+        void testLocaleFlags() throws IOException {
+            assertEquals(0, DaemonClient.run(socket, List.of("-E", "\\d"), Set.of(), tempDir,
+                    new ByteArrayInputStream("٣\n".getBytes(StandardCharsets.UTF_8)), out, err));
+            assertEquals(1, DaemonClient.run(socket, List.of("-E", "\\d"), Set.of(PatternFlag.ASCII), tempDir,
+                    new ByteArrayInputStream("٣\n".getBytes(StandardCharsets.UTF_8)), out, err));
+        }
+    }
+
+    @Nested
+    @DisplayName("Errors")
+    class Errors {
+
+        @Test
+        @DisplayName("Missing files should be reported on the client's standard error")
+        void testMissingFile() throws IOException {
+            assertEquals(2, run(null, "-E", "x", "missing.log"));
+            assertEquals("grep: missing.log: No such file or directory\n", err.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Invalid patterns should fail the invocation but not the daemon")
+        void testInvalidPattern() throws IOException {
+            assertEquals(2, run("", "-E", "(a"));
+            assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("grep: "));
+            assertEquals(0, run("a\n", "-E", "a"));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"fo(", "\\q", "a{3,1}"})
+        @DisplayName("Invalid patterns should be reported as in a local run")
+        void testSameErrorsAsLocalRun(String pattern) throws IOException, InterruptedException {
+            ByteArrayOutputStream localErr = new ByteArrayOutputStream();
+            int localStatus = Main.run(Options.parse(new String[]{"-E", pattern}), Set.of(), tempDir,
+                    Channels.newChannel(InputStream.nullInputStream()), new ByteArrayOutputStream(),
+                    new PrintStream(localErr, true, StandardCharsets.UTF_8), new PatternCache(1));
+
+            assertEquals(2, localStatus);
+            assertEquals(localStatus, run("", "-E", pattern));
+            assertEquals(localErr.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("A pattern nested too deeply should fail only its own request")
+        void testTooDeepPattern() throws IOException {
+            assertEquals(2, run("", "-E", "a" + "?".repeat(100_000)));
+            assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("grep: Pattern nests deeper than"));
+            assertEquals(0, run("a\n", "-E", "a?"));
+        }
+
+        @Test
+        @DisplayName("Binding should replace a stale socket but never another file")
+        void testBind() throws IOException {
+            server.close();
+            Path file = Files.writeString(tempDir.resolve("not-a-socket"), "keep");
+
+            assertThrows(IOException.class, () -> DaemonServer.bind(file));
+            assertEquals("keep", Files.readString(file));
+
+            Path stale = tempDir.resolve("stale.sock");
+            try (ServerSocketChannel abandoned = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                abandoned.bind(UnixDomainSocketAddress.of(stale));
+            }
+            try (DaemonServer replacing = DaemonServer.bind(stale)) {
+                assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(stale)));
+            }
+            try (Stream<Path> files = Files.list(tempDir)) {
+                assertEquals(List.of("not-a-socket"), files.map(path -> path.getFileName().toString()).toList());
+            }
+        }
+
+        @Test
+        @DisplayName("Binding should refuse a socket a daemon is still listening on")
+        void testBindLiveSocket() throws IOException {
+            IOException e = assertThrows(IOException.class, () -> DaemonServer.bind(socket));
+            assertEquals("A daemon is already listening", e.getMessage());
+            assertEquals(0, run("x\n", "-E", "x"));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.codecrafters.grep.cli;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for command-line option parsing.
+ * Covers flag clusters, operand handling, and usage errors.
+ */
+@DisplayName("Command-Line Options Tests")
+class OptionsTest {
+
+    @Nested
+    @DisplayName("Valid Command Lines")
+    class ValidCommandLines {
+
+        @Test
+        @DisplayName("Pattern and files should be taken from the operands")
+        void testPatternAndFiles() {
+            Options options = Options.parse("-E", "\\d", "a.log", "b.log");
+
+            assertEquals("\\d", options.pattern());
+            assertEquals(List.of("a.log", "b.log"), options.files());
+            assertFalse(options.recursive());
+        }
+
+        @Test
+        @DisplayName("Short flags may be clustered and given in any order")
+        void testFlagClusters() {
+            assertTrue(Options.parse("-rE", "x").recursive());
+            assertTrue(Options.parse("-E", "x", "-r", "dir").recursive());
+            Options output = Options.parse("-oEb", "x");
+            assertTrue(output.onlyMatching());
+            assertTrue(output.byteOffset());
+            assertTrue(Options.parse("-iE", "x").ignoreCase());
+            assertFalse(output.ignoreCase());
+        }
+
+        @Test
+        @DisplayName("Arguments after -- should be operands even when they look like flags")
+        void testEndOfOptions() {
+            Options options = Options.parse("-E", "--", "-r", "-file");
+
+            assertEquals("-r", options.pattern());
+            assertEquals(List.of("-file"), options.files());
+            assertFalse(options.recursive());
+        }
+
+        @Test
+        @DisplayName("Output mode flags and -m values should be parsed")
+        void testOutputModes() {
+            Options options = Options.parse("-cqlE", "-m", "5", "x");
+
+            assertTrue(options.count());
+            assertTrue(options.quiet());
+            assertTrue(options.listFiles());
+            assertEquals(5, options.maxCount());
+            assertEquals(3, Options.parse("-Em3", "x").maxCount());
+            assertEquals(-1, Options.parse("-E", "x").maxCount());
+        }
+
+        @Test
+        @DisplayName("-v and context lengths should be parsed, -A and -B overriding -C")
+        void testInvertAndContext() {
+            Options options = Options.parse("-vE", "-C", "2", "-A1", "x");
+
+            assertTrue(options.invert());
+            assertEquals(1, options.afterContext());
+            assertEquals(2, options.beforeContext());
+            assertEquals(0, Options.parse("-E", "x").afterContext());
+            assertEquals(3, Options.parse("-EB", "3", "x").beforeContext());
+        }
+
+        @Test
+        @DisplayName("--build-index should take directories without needing -E or a pattern")
+        void testBuildIndex() {
+            Options options = Options.parse("--build-index", "logs", "archive");
+
+            assertTrue(options.buildIndex());
+            assertEquals(List.of("logs", "archive"), options.files());
+            assertFalse(Options.parse("-E", "x").buildIndex());
+        }
+
+        @Test
+        @DisplayName("With -f every operand should be a file")
+        void testPatternFiles() {
+            Options separate = Options.parse("-E", "-f", "iocs.txt", "a.log");
+            Options attached = Options.parse("-Efiocs.txt", "a.log", "b.log");
+
+            assertNull(separate.pattern());
+            assertEquals(List.of("iocs.txt"), separate.patternFiles());
+            assertEquals(List.of("a.log"), separate.files());
+            assertEquals(List.of("iocs.txt"), attached.patternFiles());
+            assertEquals(List.of("a.log", "b.log"), attached.files());
+        }
+    }
+
+    @Nested
+    @DisplayName("Usage Errors")
+    class UsageErrors {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"-x", "-Ez"})
+        @DisplayName("Unknown flags should be rejected")
+        void testUnknownFlag(String flag) {
+            assertThrows(UsageException.class, () -> Options.parse("-E", flag, "a"));
+        }
+
+        @Test
+        @DisplayName("A missing -E or pattern should be rejected")
+        void testMissingRequiredArguments() {
+            assertThrows(UsageException.class, () -> Options.parse("a"));
+            assertThrows(UsageException.class, () -> Options.parse("-E"));
+            assertThrows(UsageException.class, () -> Options.parse("-E", "-f"));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"x", "-1", ""})
+        @DisplayName("Invalid -m values should be rejected")
+        void testInvalidMaxCount(String value) {
+            assertThrows(UsageException.class, () -> Options.parse("-E", "-m", value, "a"));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"x", "-1", ""})
+        @DisplayName("Invalid context lengths should be rejected")
+        void testInvalidContextLength(String value) {
+            assertThrows(UsageException.class, () -> Options.parse("-E", "-C", value, "a"));
+            assertThrows(UsageException.class, () -> Options.parse("-E", "-A", value, "a"));
+        }
+    }
+}
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -26,7 +28,10 @@ class ErrorHandlingTest extends BaseRegexTest {
             "\\x", "\\z", "\\q",     // Invalid escape sequences
             "[]",                    // Empty character classes
             "[abc", "[^",            // Unclosed character classes
-            "[^]"                    // Empty negative character class
+            "[^]",                   // Empty negative character class
+            "[z-a]",                 // Reversed range
+            "ab\\", "a\\q",            // Trailing backslash, unknown escape in a sequence
+            "a[bc", "[ab]]["          // Unclosed character class in a sequence
         })
         @DisplayName("Invalid patterns should throw ParseException")
         void testInvalidPatterns(String invalidPattern) {
@@ -102,10 +107,38 @@ class ErrorHandlingTest extends BaseRegexTest {
     class BoundaryConditions {
 
         @Test
-        @DisplayName("Very long patterns should throw ParseException")
+        @DisplayName("Very long literal patterns should compile and match")
         void testVeryLongPattern() {
             String longPattern = "a".repeat(1000);
-            assertParseException(longPattern);
+            assertMatches(longPattern, "b" + longPattern + "b");
+            assertDoesNotMatch(longPattern, "a".repeat(999));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {600, 100_000})
+        @DisplayName("Deeply nested groups and long runs of operators should throw ParseException")
+        void testTooDeepPatterns(int depth) {
+            assertParseException("(".repeat(depth) + "a" + ")".repeat(depth));
+            assertParseException("a" + "?".repeat(depth));
+            assertParseException("(a|" + "(b*)".repeat(10) + "c" + "{1}".repeat(depth) + ")");
+        }
+
+        @Test
+        @DisplayName("Patterns nested just within the limit should compile and match on a default-sized stack")
+        void testDeepPatternsWithinLimit() throws InterruptedException {
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    assertMatches("(".repeat(498) + "a" + ")".repeat(498), "xa");
+                    assertMatches("a" + "?".repeat(498) + "b", "b");
+                    assertDoesNotMatch("(" + "(a|b)+".repeat(5) + "c" + "?".repeat(490) + ")d", "abd");
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            thread.start();
+            thread.join();
+            assertNull(failure.get(), () -> String.valueOf(failure.get()));
         }
 
         @Test
@@ -116,9 +149,9 @@ class ErrorHandlingTest extends BaseRegexTest {
         }
 
         @Test
-        @DisplayName("Pattern with only special characters should throw ParseException")
+        @DisplayName("Pattern of special characters with an unclosed group should throw ParseException")
         void testSpecialCharacterOnlyPattern() {
-            assertParseException("!@#$%^&*()");
+            assertParseException("!@#$%^&*(");
         }
 
         @Test
@@ -133,7 +166,7 @@ class ErrorHandlingTest extends BaseRegexTest {
         void testAllAsciiPrintableCharacters() {
             for (char c = 32; c <= 126; c++) {
                 // Skip characters that have special meaning in regex
-                if (c == '[' || c == ']' || c == '^' || c == '\\') {
+                if (c == '[' || c == ']' || c == '^' || c == '\\' || c == '(') {
                     continue;
                 }
                 final char ch = c;
@@ -0,0 +1,118 @@
+package io.codecrafters.grep.matcher;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Aho-Corasick automaton and for pattern sets compiled with
+ * {@link RegexPattern#compileAll(List)}.
+ */
+@DisplayName("Aho-Corasick Tests")
+class AhoCorasickTest {
+
+    private static int matchEnd(AhoCorasick automaton, String text) {
+        ByteBuffer utf8 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        return automaton.matchEnd(utf8, 0, utf8.limit());
+    }
+
+    @Nested
+    @DisplayName("Automaton")
+    class Automaton {
+
+        @Test
+        @DisplayName("The earliest-ending literal should be reported")
+        void testEarliestEnd() {
+            AhoCorasick automaton = AhoCorasick.forLiterals(List.of("he", "she", "his", "hers"));
+
+            assertEquals(4, automaton.matchEnd("ushers", 0));
+            assertEquals(4, matchEnd(automaton, "ushers"));
+            assertEquals(-1, automaton.matchEnd("hxs sh", 0));
+            assertEquals(-1, matchEnd(automaton, "hxs sh"));
+        }
+
+        @Test
+        @DisplayName("Literals reached only through failure links should be found")
+        void testFailureLinks() {
+            AhoCorasick automaton = AhoCorasick.forLiterals(List.of("abcd", "bc"));
+
+            assertEquals(3, automaton.matchEnd("abce", 0));
+            assertEquals(4, automaton.matchEnd("aabcd", 0));
+        }
+
+        @Test
+        @DisplayName("Non-ASCII literals should match in chars and in UTF-8 bytes")
+        void testNonAscii() {
+            AhoCorasick automaton = AhoCorasick.forLiterals(List.of("café", "日本"));
+
+            assertEquals(7, automaton.matchEnd("un café", 0));
+            assertEquals(8, matchEnd(automaton, "un café"));
+            assertEquals(3, automaton.matchEnd("x日本", 0));
+            assertEquals(-1, automaton.matchEnd("cafe 日", 0));
+            assertEquals(-1, matchEnd(automaton, "cafe 日"));
+        }
+
+        @Test
+        @DisplayName("An empty literal should match at the start and no literals should match nothing")
+        void testEdgeCases() {
+            assertEquals(0, AhoCorasick.forLiterals(List.of("abc", "")).matchEnd("zzz", 0));
+            assertEquals(-1, AhoCorasick.forLiterals(List.of()).matchEnd("zzz", 0));
+        }
+
+        @Test
+        @DisplayName("States should grow with the total literal length, not the alphabet")
+        void testCompactStates() {
+            List<String> literals = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                literals.add("ioc-" + Integer.toHexString(i * 7919));
+            }
+            AhoCorasick automaton = AhoCorasick.forLiterals(literals);
+
+            assertTrue(automaton.stateCount() <= literals.stream().mapToInt(String::length).sum() + 1);
+            assertEquals(-1, automaton.matchEnd("ioc-zzz and nothing else", 0));
+            assertTrue(automaton.matchEnd("found ioc-" + Integer.toHexString(5000 * 7919) + " today", 0) >= 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Pattern Sets")
+    class PatternSets {
+
+        @Test
+        @DisplayName("A set of literals should match lines containing any of them")
+        void testLiteralSet() {
+            RegexPattern pattern = RegexPattern.compileAll(List.of("error", "warn", "a\\.b"));
+
+            assertTrue(pattern.matches("an error occurred"));
+            assertTrue(pattern.matches("a.b"));
+            assertFalse(pattern.matches("axb info"));
+            assertTrue(pattern.matches(ByteBuffer.wrap("warning".getBytes(StandardCharsets.UTF_8)), 0, 7));
+        }
+
+        @Test
+        @DisplayName("Sets mixing literals and classes should be matched as alternatives")
+        void testMixedSet() {
+            RegexPattern pattern = RegexPattern.compileAll(List.of("id\\d", "[xyz]q", "plain"));
+
+            assertTrue(pattern.matches("user id7"));
+            assertTrue(pattern.matches("yq"));
+            assertTrue(pattern.matches("plain text"));
+            assertFalse(pattern.matches("id_ aq plai"));
+        }
+
+        @Test
+        @DisplayName("An empty pattern should match every line and an empty set none")
+        void testEmptyPatterns() {
+            assertTrue(RegexPattern.compileAll(List.of("")).matches("anything"));
+            assertTrue(RegexPattern.compileAll(List.of("\\d", "")).matches("no digits"));
+            assertFalse(RegexPattern.compileAll(List.of()).matches("anything"));
+        }
+    }
+}
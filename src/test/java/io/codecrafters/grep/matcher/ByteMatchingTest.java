@@ -0,0 +1,119 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.PatternFlag;
+import io.codecrafters.grep.parser.PatternParser;
+import io.codecrafters.grep.patterns.CharacterClass;
+import io.codecrafters.grep.patterns.EscapedSequence;
+import io.codecrafters.grep.patterns.LiteralCharacter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for matching UTF-8 bytes directly, without decoding to chars first.
+ * The byte path must always agree with matching the decoded text.
+ */
+@DisplayName("Byte-Level Matching Tests")
+class ByteMatchingTest {
+
+    private static boolean matchesBytes(String pattern, String text) {
+        byte[] bytes = ("##" + text + "##").getBytes(StandardCharsets.UTF_8);
+        return RegexPattern.compile(pattern).matches(ByteBuffer.wrap(bytes), 2, bytes.length - 4);
+    }
+
+    @Nested
+    @DisplayName("Agreement With Decoded Matching")
+    class AgreementWithDecodedMatching {
+
+        @ParameterizedTest
+        @CsvSource({
+            "a, apple",
+            "a, épée",
+            "é, café",
+            "é, cafe",
+            "\\d, v2",
+            "\\d, ٣",
+            "\\w, ñ",
+            "\\w, ---",
+            "[abc], ébc",
+            "[^abc], abcé",
+            "[^abc], abc",
+            "[é], été"
+        })
+        @DisplayName("Byte matching should give the same answer as char matching")
+        void testAgreesWithCharMatching(String pattern, String text) {
+            assertEquals(RegexPattern.compile(pattern).matches(text), matchesBytes(pattern, text));
+        }
+
+        @Test
+        @DisplayName("Only the given range of the buffer should be matched")
+        void testRespectsRange() {
+            ByteBuffer buffer = ByteBuffer.wrap("x1x".getBytes(StandardCharsets.UTF_8));
+            RegexPattern digit = RegexPattern.compile("\\d");
+
+            assertFalse(digit.matches(buffer, 0, 1));
+            assertTrue(digit.matches(buffer, 1, 1));
+            assertEquals(0, buffer.position());
+            assertEquals(3, buffer.limit());
+        }
+    }
+
+    @Nested
+    @DisplayName("Decoding Avoidance")
+    class DecodingAvoidance {
+
+        @Test
+        @DisplayName("ASCII-only patterns should decide non-ASCII lines without decoding")
+        void testAsciiOnlyPatternSkipsDecoding() {
+            LazyDfa dfa = new LazyDfa(Nfa.compile(List.of(new LiteralCharacter('a'), new CharacterClass("bc", false))));
+            ByteBuffer line = ByteBuffer.wrap("éab".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(LazyDfa.MATCH, dfa.matches(line, 0, line.limit()));
+        }
+
+        @Test
+        @DisplayName("Patterns that can match non-ASCII chars should ask for decoding")
+        void testUnicodePatternNeedsDecoding() {
+            LazyDfa dfa = new LazyDfa(Nfa.compile(List.of(EscapedSequence.WORD)));
+
+            assertEquals(LazyDfa.NEEDS_DECODING, dfa.matches(ByteBuffer.wrap("-é".getBytes(StandardCharsets.UTF_8)), 0, 3));
+            assertEquals(LazyDfa.NO_MATCH, dfa.matches(ByteBuffer.wrap("--".getBytes(StandardCharsets.UTF_8)), 0, 2));
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "a, true",
+            "é, false",
+            "[abc], true",
+            "[^abc], false",
+            "\\d, false",
+            "\\w+, false"
+        })
+        @DisplayName("Elements should report whether they only match ASCII")
+        void testAsciiOnlyClassification(String pattern, boolean asciiOnly) {
+            assertEquals(asciiOnly, Nfa.compile(PatternParser.parse(pattern)).asciiOnly());
+        }
+
+        @Test
+        @DisplayName("ASCII-mode shorthands should let non-ASCII lines be decided without decoding")
+        void testAsciiModeSkipsDecoding() {
+            Nfa nfa = Nfa.compile(PatternParser.parse("\\w\\d", Set.of(PatternFlag.ASCII)));
+            LazyDfa dfa = new LazyDfa(nfa);
+            ByteBuffer hit = ByteBuffer.wrap("é中 x1".getBytes(StandardCharsets.UTF_8));
+            ByteBuffer miss = ByteBuffer.wrap("é1 中2".getBytes(StandardCharsets.UTF_8));
+
+            assertTrue(nfa.asciiOnly());
+            assertEquals(LazyDfa.MATCH, dfa.matches(hit, 0, hit.limit()));
+            assertEquals(LazyDfa.NO_MATCH, dfa.matches(miss, 0, miss.limit()));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.codecrafters.grep.matcher;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for match position reporting through {@code find}.
+ * Covers the DFA-backed, literal and literal-set engines on chars and bytes.
+ */
+@DisplayName("Find Tests")
+class FindTest {
+
+    // Collects every non-overlapping match of the text, found through chars.
+    private static List<String> charMatches(RegexPattern pattern, String text) {
+        List<String> matches = new ArrayList<>();
+        Match match = new Match();
+        int from = 0;
+        while (from <= text.length() && pattern.find(text, from, match)) {
+            if (!match.isEmpty()) {
+                matches.add(match.start() + "-" + text.substring(match.start(), match.end()));
+            }
+            from = match.isEmpty() ? match.end() + 1 : match.end();
+        }
+        return matches;
+    }
+
+    // Collects every non-overlapping match of the text, found through its UTF-8 bytes.
+    private static List<String> byteMatches(RegexPattern pattern, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<String> matches = new ArrayList<>();
+        Match match = new Match();
+        int from = 0;
+        while (from <= bytes.length && pattern.find(buffer, 0, from, bytes.length, match)) {
+            if (!match.isEmpty()) {
+                String matched = new String(bytes, match.start(), match.end() - match.start(), StandardCharsets.UTF_8);
+                matches.add(match.start() + "-" + matched);
+            }
+            from = match.isEmpty() ? match.end() + 1 : match.end();
+        }
+        return matches;
+    }
+
+    @Nested
+    @DisplayName("Single Patterns")
+    class SinglePatterns {
+
+        @ParameterizedTest
+        @CsvSource(delimiter = '|', value = {
+            "\\d\\d | a12b345 | 1-12 4-34",
+            "[ab]c | acbcxc | 0-ac 2-bc",
+            "took \\dms | took 5ms, took 7ms | 0-took 5ms 10-took 7ms",
+            "needle | needle in needles | 0-needle 10-needle",
+            "x | abc | ''"
+        })
+        @DisplayName("Matches should be reported left to right without overlapping")
+        void testNonOverlappingMatches(String regex, String text, String expected) {
+            RegexPattern pattern = RegexPattern.compile(regex);
+            List<String> expectedMatches = expected.isEmpty() ? List.of() : List.of(expected.split(" (?=\\d+-)"));
+
+            assertEquals(expectedMatches, charMatches(pattern, text));
+            assertEquals(expectedMatches, byteMatches(pattern, text));
+        }
+
+        @Test
+        @DisplayName("Byte offsets should account for multi-byte characters")
+        void testByteOffsets() {
+            RegexPattern pattern = RegexPattern.compile("\\wé");
+
+            assertEquals(List.of("3-xé"), charMatches(pattern, "ça xé"));
+            assertEquals(List.of("4-xé"), byteMatches(pattern, "ça xé"));
+        }
+
+        @Test
+        @DisplayName("Malformed bytes should be skipped as single replacement characters")
+        void testMalformedBytes() {
+            ByteBuffer buffer = ByteBuffer.wrap(new byte[]{'a', (byte) 0xC3, 'b', '1'});
+            Match match = new Match();
+
+            assertTrue(RegexPattern.compile("[^a]b\\d").find(buffer, 0, 4, match));
+            assertEquals(1, match.start());
+            assertEquals(4, match.end());
+        }
+    }
+
+    @Nested
+    @DisplayName("Operators")
+    class Operators {
+
+        @ParameterizedTest
+        @CsvSource(delimiter = '|', value = {
+            "^a | aaa | 0-a",
+            "a$ | aaa | 2-a",
+            "a+ | baaab aa | 1-aaa 6-aa",
+            "x* | ab | ''",
+            "'cat|category' | category | 0-category",
+            "(ab)+c? | ababcab | 0-ababc 5-ab",
+            "a{2,3} | aaaaaaa | 0-aaa 3-aaa",
+            "b.d | abcd ab d | 1-bcd 6-b d"
+        })
+        @DisplayName("Matches should be leftmost-longest and anchors should hold only at the line bounds")
+        void testOperatorMatches(String regex, String text, String expected) {
+            RegexPattern pattern = RegexPattern.compile(regex);
+            List<String> expectedMatches = expected.isEmpty() ? List.of() : List.of(expected.split(" (?=\\d+-)"));
+
+            assertEquals(expectedMatches, charMatches(pattern, text));
+            assertEquals(expectedMatches, byteMatches(pattern, text));
+        }
+
+        @Test
+        @DisplayName("Groups should report the bounds of their last iteration")
+        void testCaptures() {
+            RegexPattern pattern = RegexPattern.compile("(\\w+)@(\\w+)(!)?");
+            Match match = new Match();
+
+            assertTrue(pattern.find("mail bob@host now", 0, match));
+            assertEquals(3, match.groupCount());
+            assertEquals("bob@host", "mail bob@host now".substring(match.start(0), match.end(0)));
+            assertEquals(5, match.start(1));
+            assertEquals(8, match.end(1));
+            assertEquals(9, match.start(2));
+            assertEquals(13, match.end(2));
+            assertEquals(-1, match.start(3));
+            assertThrows(IndexOutOfBoundsException.class, () -> match.start(4));
+
+            assertTrue(RegexPattern.compile("(a|b)+").find("xabba", 0, match));
+            assertEquals(4, match.start(1));
+            assertEquals(5, match.end(1));
+        }
+
+        @Test
+        @DisplayName("Patterns without groups should report no groups, even after a match that had them")
+        void testNoGroups() {
+            Match match = new Match();
+            RegexPattern.compile("(a)").find("a", 0, match);
+
+            assertTrue(RegexPattern.compile("a+").find("baa", 0, match));
+            assertEquals(0, match.groupCount());
+            assertEquals(1, match.start(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Pattern Sets")
+    class PatternSets {
+
+        @Test
+        @DisplayName("Literal sets should report the leftmost, then longest, literal")
+        void testLeftmostLongestLiterals() {
+            RegexPattern pattern = RegexPattern.compileAll(List.of("bcd", "abcdef", "abc", "ef"));
+
+            assertEquals(List.of("1-abcdef", "8-bcd"), charMatches(pattern, "xabcdef bcd"));
+            assertEquals(List.of("1-abcdef", "8-bcd"), byteMatches(pattern, "xabcdef bcd"));
+        }
+
+        @Test
+        @DisplayName("Mixed sets should report the leftmost, then longest, alternative")
+        void testLeftmostLongestAlternatives() {
+            RegexPattern pattern = RegexPattern.compileAll(List.of("a\\d", "\\wa\\d\\d", "z"));
+
+            assertEquals(List.of("0-xa12", "5-a3", "8-z"), charMatches(pattern, "xa12 a3 z"));
+            assertEquals(List.of("0-xa12", "5-a3", "8-z"), byteMatches(pattern, "xa12 a3 z"));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.patterns.EscapedSequence;
+import io.codecrafters.grep.patterns.LiteralCharacter;
+import io.codecrafters.grep.patterns.PatternElement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the skip-table search used by pure literal patterns.
+ */
+@DisplayName("Horspool Search Tests")
+class HorspoolSearchTest {
+
+    private static HorspoolSearch search(String literal) {
+        List<PatternElement> elements = new ArrayList<>();
+        for (char ch : literal.toCharArray()) {
+            elements.add(new LiteralCharacter(ch));
+        }
+        return HorspoolSearch.forElements(elements);
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Only sequences of two or more literal chars should get a searcher")
+    void testEligibility() {
+        assertNull(HorspoolSearch.forElements(List.of(new LiteralCharacter('a'))));
+        assertNull(HorspoolSearch.forElements(List.of(new LiteralCharacter('a'), EscapedSequence.DIGIT)));
+        assertEquals("ab", search("ab").literal());
+    }
+
+    @Nested
+    @DisplayName("Char Search")
+    class CharSearch {
+
+        @Test
+        @DisplayName("Strings and other char sequences should report the same positions")
+        void testPositions() {
+            HorspoolSearch search = search("needle");
+            String text = "a needless needle";
+
+            assertEquals(2, search.indexOf(text));
+            assertEquals(2, search.indexOf(new StringBuilder(text)));
+            assertEquals(-1, search.indexOf(new StringBuilder("needl needl")));
+            assertEquals(-1, search.indexOf(new StringBuilder("nee")));
+        }
+
+        @Test
+        @DisplayName("Chars sharing a shift slot should never cause a missed match")
+        void testSharedShiftSlots() {
+            // 'Ł' (U+0141) shares the low byte of 'A'.
+            HorspoolSearch search = search("ŁxA");
+
+            assertEquals(3, search.indexOf(new StringBuilder("AxAŁxA")));
+            assertEquals(-1, search.indexOf(new StringBuilder("AxAAxA")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Byte Search")
+    class ByteSearching {
+
+        @Test
+        @DisplayName("Literals should be found in UTF-8 bytes within the given range")
+        void testRange() {
+            HorspoolSearch search = search("abc");
+            ByteBuffer buffer = utf8("abc xx abc");
+
+            assertEquals(0, search.indexOf(buffer, 0, buffer.limit()));
+            assertEquals(7, search.indexOf(buffer, 1, buffer.limit()));
+            assertEquals(-1, search.indexOf(buffer, 1, 9));
+        }
+
+        @Test
+        @DisplayName("Non-ASCII literals should be matched by their UTF-8 encoding")
+        void testNonAsciiLiteral() {
+            HorspoolSearch search = search("café");
+            ByteBuffer hit = utf8("un café noir");
+            ByteBuffer miss = utf8("un cafe noir");
+
+            assertEquals(3, search.indexOf(hit, 0, hit.limit()));
+            assertEquals(-1, search.indexOf(miss, 0, miss.limit()));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.PatternParser;
+import io.codecrafters.grep.patterns.CharacterClass;
+import io.codecrafters.grep.patterns.EscapedSequence;
+import io.codecrafters.grep.patterns.LiteralCharacter;
+import io.codecrafters.grep.patterns.PatternElement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the lazily-built DFA that backs {@link RegexPattern}.
+ * Element sequences are compiled directly so multi-element NFAs can be exercised.
+ */
+@DisplayName("Lazy DFA Tests")
+class LazyDfaTest {
+
+    private static LazyDfa dfa(PatternElement... elements) {
+        return new LazyDfa(Nfa.compile(List.of(elements)));
+    }
+
+    @Nested
+    @DisplayName("Sequence Matching")
+    class SequenceMatching {
+
+        @Test
+        @DisplayName("Element sequences should match anywhere in the text")
+        void testUnanchoredSequence() {
+            LazyDfa dfa = dfa(new LiteralCharacter('a'), EscapedSequence.DIGIT, new LiteralCharacter('b'));
+
+            assertTrue(dfa.matches("a1b"));
+            assertTrue(dfa.matches("xxa7byy"));
+            assertFalse(dfa.matches("ab1"));
+            assertFalse(dfa.matches("a1"));
+        }
+
+        @Test
+        @DisplayName("Overlapping prefixes should not hide a later match")
+        void testOverlappingPrefixes() {
+            LazyDfa dfa = dfa(new LiteralCharacter('a'), new LiteralCharacter('a'), new LiteralCharacter('b'));
+
+            assertTrue(dfa.matches("aaab"));
+            assertFalse(dfa.matches("abab"));
+        }
+
+        @Test
+        @DisplayName("Characters outside Latin-1 should be matched through the wide-char cache")
+        void testWideCharacters() {
+            LazyDfa dfa = dfa(new LiteralCharacter('α'), new CharacterClass("βγ", false));
+
+            assertTrue(dfa.matches("xαγ"));
+            assertFalse(dfa.matches("αα"));
+        }
+
+        @Test
+        @DisplayName("Results should not change when the wide-char cache fills up and is emptied")
+        void testManyWideCharacters() {
+            LazyDfa dfa = dfa(new LiteralCharacter('α'), new CharacterClass("βγ", false));
+            StringBuilder text = new StringBuilder();
+            for (char ch = '\u4E00'; ch < '\u6E00'; ch++) {
+                text.append(ch).append('α');
+            }
+
+            assertFalse(dfa.matches(text));
+            assertTrue(dfa.matches(text + "αβ"));
+            assertFalse(dfa.matches(text));
+        }
+    }
+
+    @Nested
+    @DisplayName("Literal Prefix Skipping")
+    class LiteralPrefixSkipping {
+
+        @Test
+        @DisplayName("A leading literal should be selected as the skip character")
+        void testSelectsPrefix() {
+            assertEquals('e', dfa(new LiteralCharacter('e'), EscapedSequence.DIGIT).prefixChar());
+            assertEquals(-1, dfa(EscapedSequence.DIGIT, new LiteralCharacter('e')).prefixChar());
+        }
+
+        @Test
+        @DisplayName("Skipping should find matches in strings and other char sequences")
+        void testSkipsOverCharSequences() {
+            LazyDfa dfa = dfa(new LiteralCharacter('e'), EscapedSequence.DIGIT);
+            String text = "x".repeat(100) + "e e" + "y".repeat(50) + "e7" + "z".repeat(10);
+
+            assertTrue(dfa.matches(text));
+            assertTrue(dfa.matches(new StringBuilder(text)));
+            assertFalse(dfa.matches(text.replace("e7", "e_")));
+            assertFalse(dfa.matches(new StringBuilder(text.replace("e7", "e_"))));
+        }
+
+        @Test
+        @DisplayName("Skipping should find matches in UTF-8 bytes, including across non-ASCII text")
+        void testSkipsOverBytes() {
+            LazyDfa dfa = dfa(new LiteralCharacter('e'), EscapedSequence.DIGIT);
+            ByteBuffer hit = ByteBuffer.wrap("ééé e é e5".getBytes(StandardCharsets.UTF_8));
+            ByteBuffer miss = ByteBuffer.wrap("ééé e é e_".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(LazyDfa.MATCH, dfa.matches(hit, 0, hit.limit()));
+            assertEquals(LazyDfa.NO_MATCH, dfa.matches(miss, 0, miss.limit()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Anchors")
+    class Anchors {
+
+        private LazyDfa dfa(String pattern) {
+            return new LazyDfa(Nfa.compile(PatternParser.parse(pattern)));
+        }
+
+        private int matchBytes(LazyDfa dfa, String text) {
+            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            return dfa.matches(buffer, 0, buffer.limit());
+        }
+
+        @Test
+        @DisplayName("A start anchor should hold only before the first char")
+        void testBeginAnchor() {
+            LazyDfa dfa = dfa("^a\\d");
+
+            assertTrue(dfa.matches("a1 tail"));
+            assertFalse(dfa.matches("xa1"));
+            assertEquals(LazyDfa.MATCH, matchBytes(dfa, "a1"));
+            assertEquals(LazyDfa.NO_MATCH, matchBytes(dfa, "ba1" + "a1".repeat(100)));
+        }
+
+        @Test
+        @DisplayName("An end anchor should be checked once the input is exhausted")
+        void testEndAnchor() {
+            LazyDfa dfa = dfa("e\\d$");
+
+            assertTrue(dfa.matches("xe1e2"));
+            assertFalse(dfa.matches("e1x"));
+            assertEquals(LazyDfa.MATCH, matchBytes(dfa, "éé e9"));
+            assertEquals(LazyDfa.NO_MATCH, matchBytes(dfa, "e9 "));
+        }
+
+        @Test
+        @DisplayName("Both anchors should allow the empty line")
+        void testEmptyLine() {
+            LazyDfa dfa = dfa("^$");
+
+            assertTrue(dfa.matches(""));
+            assertFalse(dfa.matches("x"));
+        }
+    }
+
+    @Nested
+    @DisplayName("State Cache")
+    class StateCache {
+
+        private static final String AB_TEXT = "abbabaabbbaababbbaaabababbbbaaab".repeat(50);
+
+        // Text without period, so a pattern like (a|b)*a.{20} keeps reaching new DFA states.
+        private static String randomAb(int length) {
+            Random random = new Random(42);
+            StringBuilder text = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                text.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            return text.toString();
+        }
+
+        @Test
+        @DisplayName("Cached states should never exceed the memory budget")
+        void testCacheBound() {
+            PatternElement[] elements = new PatternElement[12];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = new CharacterClass("ab", i % 3 == 0);
+            }
+            Nfa nfa = Nfa.compile(List.of(elements));
+            long budget = 4 * LazyDfa.stateBytes(nfa.size(), nfa.byteClassCount());
+            LazyDfa dfa = new LazyDfa(nfa, budget);
+
+            dfa.matches(AB_TEXT);
+            assertTrue(dfa.cachedBytes() <= budget);
+        }
+
+        @Test
+        @DisplayName("Results should not change when the cache is flushed")
+        void testResultsSurviveFlush() {
+            Nfa nfa = Nfa.compile(List.of(new LiteralCharacter('x'), EscapedSequence.WORD, EscapedSequence.DIGIT));
+            LazyDfa small = new LazyDfa(nfa, 2 * LazyDfa.stateBytes(nfa.size(), nfa.byteClassCount()));
+            LazyDfa large = new LazyDfa(nfa);
+
+            for (String text : List.of("xa1", "x_", "zzxx9", "x 1", "axbxc2")) {
+                assertEquals(large.matches(text), small.matches(text), text);
+            }
+        }
+
+        @Test
+        @DisplayName("A thrashing cache should hand the scan to the NFA simulation with the same results")
+        void testFallbackOnThrashing() {
+            Nfa nfa = Nfa.compile(PatternParser.parse("(a|b)*a.{20}c"));
+            DfaCounters counters = new DfaCounters();
+            LazyDfa small = new LazyDfa(nfa, 3 * LazyDfa.stateBytes(nfa.size(), nfa.byteClassCount()), counters);
+            LazyDfa large = new LazyDfa(nfa);
+            String hit = AB_TEXT + "a" + "b".repeat(20) + "c";
+
+            assertTrue(small.matches(hit));
+            assertFalse(small.matches(AB_TEXT));
+            ByteBuffer bytes = ByteBuffer.wrap(hit.getBytes(StandardCharsets.UTF_8));
+            assertEquals(LazyDfa.MATCH, small.matches(bytes, 0, bytes.limit()));
+            assertEquals(large.matches(hit), small.matches(hit));
+
+            RegexPattern.DfaStats stats = counters.stats();
+            assertTrue(stats.cacheResets() > 0);
+            assertEquals(4, stats.fallbacks());
+            assertTrue(stats.statesBuilt() >= stats.cacheResets());
+        }
+
+        @Test
+        @DisplayName("Thrashing across many short lines should keep the scans on the NFA simulation for a while")
+        void testFallbackAcrossLines() {
+            Nfa nfa = Nfa.compile(PatternParser.parse("(a|b)*a.{20}c"));
+            DfaCounters counters = new DfaCounters();
+            LazyDfa small = new LazyDfa(nfa, 16 * 1024, counters);
+            LazyDfa large = new LazyDfa(nfa);
+            String text = randomAb(120 * 5000);
+
+            for (int line = 0; line < 5000; line++) {
+                String ab = text.substring(120 * line, 120 * line + 120);
+                String hit = line % 100 == 0 ? ab + "a" + "b".repeat(20) + "c" : ab;
+                ByteBuffer bytes = ByteBuffer.wrap(hit.getBytes(StandardCharsets.UTF_8));
+                assertEquals(large.matches(hit), small.matches(hit), hit);
+                assertEquals(large.matches(bytes, 0, bytes.limit()), small.matches(bytes, 0, bytes.limit()), hit);
+            }
+
+            // A decision forgotten after every line resets the cache about once per line.
+            RegexPattern.DfaStats stats = counters.stats();
+            assertTrue(stats.cacheResets() < 100, stats.toString());
+            assertTrue(stats.fallbacks() > 9000, stats.toString());
+        }
+
+        @Test
+        @DisplayName("Patterns should report DFA activity for their configured budget")
+        void testPatternStats() throws InterruptedException {
+            RegexPattern pattern = RegexPattern.compile("(a|b)*a.{20}c").withDfaMemoryBudget(64 * 1024);
+            String text = randomAb(5000);
+            Thread worker = new Thread(() -> pattern.matches(text));
+            worker.start();
+            worker.join();
+            pattern.matches(text);
+
+            RegexPattern.DfaStats stats = pattern.dfaStats();
+            assertTrue(stats.statesBuilt() > 0);
+            assertTrue(stats.cacheResets() > 0);
+            assertEquals(new RegexPattern.DfaStats(0, 0, 0), RegexPattern.compile("abc").dfaStats());
+            assertThrows(IllegalArgumentException.class, () -> pattern.withDfaMemoryBudget(0));
+        }
+
+        @Test
+        @DisplayName("A budget that is not positive should be rejected")
+        void testInvalidBound() {
+            Nfa nfa = Nfa.compile(List.of(new LiteralCharacter('a')));
+            assertThrows(IllegalArgumentException.class, () -> new LazyDfa(nfa, 0));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.PatternFlag;
+import io.codecrafters.grep.parser.PatternParser;
+import io.codecrafters.grep.patterns.AnyCharacter;
+import io.codecrafters.grep.patterns.CharacterClass;
+import io.codecrafters.grep.patterns.EscapedSequence;
+import io.codecrafters.grep.patterns.LiteralCharacter;
+import io.codecrafters.grep.patterns.PatternElement;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the compiled NFA's state tables.
+ * Covers the flattened Latin-1 char tables and the byte classes derived from them.
+ */
+@DisplayName("NFA Tests")
+class NfaTest {
+
+    @Test
+    @DisplayName("Char tables should agree with the elements for every char")
+    void testCharTablesMatchElements() {
+        List<PatternElement> elements = List.of(
+                new LiteralCharacter('é'),
+                new LiteralCharacter('中'),
+                new CharacterClass("a-zß", false),
+                new CharacterClass("0-9ÿ", true),
+                EscapedSequence.DIGIT,
+                EscapedSequence.WORD,
+                EscapedSequence.ASCII_DIGIT,
+                EscapedSequence.ASCII_WORD,
+                AnyCharacter.INSTANCE);
+        Nfa nfa = Nfa.compile(elements);
+
+        int checked = 0;
+        for (int state = 0; state < nfa.size(); state++) {
+            if (nfa.opcode(state) != Nfa.CHAR) {
+                continue;
+            }
+            checked++;
+            PatternElement element = nfa.element(state);
+            for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+                assertEquals(element.match((char) ch), nfa.matches(state, (char) ch),
+                        element + " at U+" + Integer.toHexString(ch));
+            }
+        }
+        assertEquals(elements.size(), checked);
+    }
+
+    @Test
+    @DisplayName("Chars should share a byte class exactly when every state treats them alike")
+    void testByteClasses() {
+        Nfa nfa = Nfa.compile(PatternParser.parse("\\d[a-c]x", Set.of(PatternFlag.ASCII)));
+
+        // Digits, a-c, x and everything else.
+        assertEquals(4, nfa.byteClassCount());
+        assertEquals(nfa.byteClass('0'), nfa.byteClass('9'));
+        assertEquals(nfa.byteClass('a'), nfa.byteClass('c'));
+        assertEquals(nfa.byteClass('d'), nfa.byteClass('é'));
+        assertNotEquals(nfa.byteClass('x'), nfa.byteClass('y'));
+        assertNotEquals(nfa.byteClass('5'), nfa.byteClass('b'));
+    }
+
+    @Test
+    @DisplayName("A pattern without char states should need a single byte class")
+    void testSingleByteClass() {
+        assertEquals(1, Nfa.compile(PatternParser.parse("^$")).byteClassCount());
+    }
+}
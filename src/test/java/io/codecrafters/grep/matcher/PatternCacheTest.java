@@ -0,0 +1,141 @@
+package io.codecrafters.grep.matcher;
+
+import io.codecrafters.grep.parser.ParseException;
+import io.codecrafters.grep.parser.PatternFlag;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the bounded cache of compiled patterns.
+ * Covers reuse, LRU eviction order, statistics, and concurrent access.
+ */
+@DisplayName("Pattern Cache Tests")
+class PatternCacheTest {
+
+    @Nested
+    @DisplayName("Caching Behaviour")
+    class CachingBehaviour {
+
+        @Test
+        @DisplayName("Repeated lookups should return the same compiled pattern")
+        void testReusesCompiledPattern() {
+            PatternCache cache = new PatternCache(8);
+            RegexPattern first = cache.get("\\d");
+
+            assertSame(first, cache.get("\\d"));
+            assertEquals(new PatternCache.Stats(1, 1, 0, 1), cache.stats());
+            assertEquals(0.5, cache.stats().hitRate());
+        }
+
+        @Test
+        @DisplayName("The least recently used pattern should be evicted first")
+        void testLruEviction() {
+            PatternCache cache = new PatternCache(2);
+            RegexPattern a = cache.get("a");
+            cache.get("b");
+            cache.get("a");
+            cache.get("c");
+
+            assertSame(a, cache.get("a"));
+            assertEquals(1, cache.stats().evictions());
+            assertEquals(2, cache.stats().size());
+            long missesBefore = cache.stats().misses();
+            cache.get("b");
+            assertEquals(missesBefore + 1, cache.stats().misses());
+        }
+
+        @Test
+        @DisplayName("The same pattern with different flags should be cached separately")
+        void testFlagsArePartOfTheKey() {
+            PatternCache cache = new PatternCache(8);
+            RegexPattern unicode = cache.get("\\w");
+            RegexPattern ascii = cache.get("\\w", Set.of(PatternFlag.ASCII));
+
+            assertNotSame(unicode, ascii);
+            assertSame(unicode, cache.get("\\w", Set.of()));
+            assertSame(ascii, cache.get("\\w", EnumSet.of(PatternFlag.ASCII)));
+            assertTrue(unicode.matches("é"));
+            assertFalse(ascii.matches("é"));
+        }
+
+        @Test
+        @DisplayName("Invalid patterns should fail without being cached")
+        void testInvalidPatternNotCached() {
+            PatternCache cache = new PatternCache(2);
+
+            assertThrows(ParseException.class, () -> cache.get("\\q"));
+            assertEquals(0, cache.stats().size());
+        }
+
+        @Test
+        @DisplayName("A non-positive size should be rejected")
+        void testInvalidSize() {
+            assertThrows(IllegalArgumentException.class, () -> new PatternCache(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Idle Matchers")
+    class IdleMatchers {
+
+        @Test
+        @DisplayName("Idle matchers should be kept for the most recently released, across all patterns")
+        void testIdleMatchersBoundedAcrossPatterns() {
+            PatternCache cache = new PatternCache(64);
+            List<RegexPattern> patterns = new ArrayList<>();
+            List<Matcher> released = new ArrayList<>();
+            for (int i = 0; i < RegexPattern.MAX_IDLE_MATCHERS + 8; i++) {
+                RegexPattern pattern = cache.get("[a-z]+" + i);
+                Matcher matcher = pattern.acquireMatcher();
+                assertTrue(matcher.matches("abc" + i));
+                pattern.releaseMatcher(matcher);
+                patterns.add(pattern);
+                released.add(matcher);
+            }
+
+            int reused = 0;
+            for (int i = patterns.size() - 1; i >= 0; i--) {
+                Matcher matcher = patterns.get(i).acquireMatcher();
+                if (matcher == released.get(i)) {
+                    reused++;
+                    assertTrue(i >= patterns.size() - RegexPattern.MAX_IDLE_MATCHERS);
+                }
+            }
+            assertEquals(RegexPattern.MAX_IDLE_MATCHERS, reused);
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrent Access")
+    class ConcurrentAccess {
+
+        @Test
+        @DisplayName("Concurrent lookups should all see one instance per pattern")
+        void testConcurrentLookups() throws Exception {
+            PatternCache cache = new PatternCache(16);
+            List<Future<RegexPattern>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+                for (int i = 0; i < 200; i++) {
+                    results.add(executor.submit(() -> cache.get("[abc]")));
+                }
+            }
+
+            RegexPattern expected = cache.get("[abc]");
+            for (Future<RegexPattern> result : results) {
+                assertSame(expected, result.get());
+            }
+            assertEquals(201, cache.stats().hits() + cache.stats().misses());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.codecrafters.grep.matcher;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for required-literal extraction and the reject path it enables.
+ */
+@DisplayName("Prefilter Tests")
+class PrefilterTest {
+
+    @Nested
+    @DisplayName("Literal Selection")
+    class LiteralSelection {
+
+        @ParameterizedTest
+        @CsvSource({
+            "'ERROR \\d', 'ERROR '",
+            "\\d\\dms, ms",
+            "a\\dlonger\\wab, longer",
+            "[xy]id=\\d, id="
+        })
+        @DisplayName("The longest literal run should be selected")
+        void testSelectsLongestRun(String pattern, String literal) {
+            assertEquals(Optional.of(literal), RegexPattern.compile(pattern).prefilter());
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"\\d", "a\\db", "[ab]\\w", "plain", "x"})
+        @DisplayName("Short runs and pure literals should not get a prefilter")
+        void testNoPrefilter(String pattern) {
+            assertEquals(Optional.empty(), RegexPattern.compile(pattern).prefilter());
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "'ERROR \\d+ at', 'ERROR | at'",
+            "plain, plain",
+            "^id=\\w$, id=",
+            "'a(b|c)d', 'a|d'"
+        })
+        @DisplayName("Every top-level literal run should be reported as required")
+        void testRequiredLiterals(String pattern, String literals) {
+            assertEquals(List.of(literals.split("\\|")), RegexPattern.compile(pattern).requiredLiterals());
+        }
+
+        @Test
+        @DisplayName("Patterns without top-level literals should require none")
+        void testNoRequiredLiterals() {
+            assertEquals(List.of(), RegexPattern.compile("\\d+|x").requiredLiterals());
+            assertEquals(List.of(), RegexPattern.compileAll(List.of("abc", "def")).requiredLiterals());
+        }
+
+        @Test
+        @DisplayName("Pattern sets should not get a prefilter")
+        void testPatternSets() {
+            assertEquals(Optional.empty(), RegexPattern.compileAll(List.of("ab\\d", "cd\\d")).prefilter());
+        }
+    }
+
+    @Nested
+    @DisplayName("Matching")
+    class Matching {
+
+        @Test
+        @DisplayName("Lines containing the literal should still be checked by the full matcher")
+        void testFullMatchStillRuns() {
+            RegexPattern pattern = RegexPattern.compile("took \\dms");
+
+            assertTrue(pattern.matches("request took 5ms"));
+            assertFalse(pattern.matches("request took ms"));
+            assertFalse(pattern.matches("nothing here"));
+            assertTrue(pattern.matches(new StringBuilder("it took 9ms")));
+        }
+
+        @Test
+        @DisplayName("UTF-8 lines should be rejected or matched consistently with decoded text")
+        void testBytes() {
+            RegexPattern pattern = RegexPattern.compile("\\wcafé");
+            for (String text : List.of("xcafé", "un café", "Ωcafé", "xcafe")) {
+                ByteBuffer utf8 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+                assertEquals(pattern.matches(text), pattern.matches(utf8, 0, utf8.limit()), text);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.codecrafters.grep.patterns;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import io.codecrafters.grep.parser.PatternFlag;
+import io.codecrafters.grep.parser.PatternParser;
+import io.codecrafters.grep.parser.Node;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for case-insensitive patterns compiled with {@link PatternFlag#IGNORE_CASE}.
+ * Covers literals, bracket expressions and ranges, and that folding happens at parse time.
+ */
+@DisplayName("Case-Insensitive Pattern Tests")
+class CaseInsensitivePatternTest {
+
+    private static boolean matches(String pattern, String text) {
+        RegexPattern compiled = RegexPattern.compile(pattern, Set.of(PatternFlag.IGNORE_CASE));
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        boolean matched = compiled.matches(text);
+        assertEquals(matched, compiled.matches(bytes, 0, bytes.limit()), "bytes and chars should agree");
+        return matched;
+    }
+
+    @Nested
+    @DisplayName("Matching")
+    class Matching {
+
+        @ParameterizedTest
+        @CsvSource({
+            "error, ERROR: disk full",
+            "Error, an error",
+            "café, CAFÉ",
+            "straße, STRASSE straSSe STRAẞE",
+            "[a-c]x, BX",
+            "[^a-z]1, 11",
+            "^hello (world|there)$, HELLO There",
+            "σ, Σ",
+            "id\\d, ID7"
+        })
+        @DisplayName("Letters should match in either case")
+        void testMatchesEitherCase(String pattern, String text) {
+            assertTrue(matches(pattern, text));
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "error, eror",
+            "[^a-z]1, A1",
+            "[a-c]x, dx",
+            "^abc$, ABCD"
+        })
+        @DisplayName("Folding should not widen what a pattern matches beyond case")
+        void testDoesNotMatch(String pattern, String text) {
+            assertFalse(matches(pattern, text));
+        }
+
+        @Test
+        @DisplayName("Patterns should stay case-sensitive without the flag")
+        void testCaseSensitiveByDefault() {
+            assertFalse(RegexPattern.compile("error").matches("ERROR"));
+            assertFalse(RegexPattern.compile("[a-c]").matches("B"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Compilation")
+    class Compilation {
+
+        @Test
+        @DisplayName("Letters should be expanded to classes while other chars stay literal")
+        void testFoldedAtParseTime() {
+            Node node = PatternParser.parse("a1", Set.of(PatternFlag.IGNORE_CASE));
+            Node.Concat concat = assertInstanceOf(Node.Concat.class, node);
+            PatternElement letter = ((Node.Element) concat.nodes().get(0)).element();
+            PatternElement digit = ((Node.Element) concat.nodes().get(1)).element();
+
+            assertInstanceOf(CharacterClass.class, letter);
+            assertTrue(letter.match('a') && letter.match('A') && !letter.match('b'));
+            assertTrue(letter.isAsciiOnly());
+            assertInstanceOf(LiteralCharacter.class, digit);
+        }
+
+        @Test
+        @DisplayName("ASCII mode should fold only ASCII letters")
+        void testAsciiFolding() {
+            Set<PatternFlag> flags = Set.of(PatternFlag.IGNORE_CASE, PatternFlag.ASCII);
+            RegexPattern kelvin = RegexPattern.compile("k", flags);
+
+            assertTrue(kelvin.matches("K"));
+            assertFalse(kelvin.matches("\u212A"));
+            assertTrue(RegexPattern.compile("k", Set.of(PatternFlag.IGNORE_CASE)).matches("\u212A"));
+            assertFalse(RegexPattern.compile("é", flags).matches("É"));
+        }
+
+        @Test
+        @DisplayName("A range covering every char should fold without looping forever")
+        void testFullRange() {
+            assertTrue(matches("[\u0001-￿]", "x"));
+        }
+    }
+}
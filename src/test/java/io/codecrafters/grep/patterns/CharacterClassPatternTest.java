@@ -152,6 +152,67 @@ class CharacterClassPatternTest extends BaseRegexTest {
         }
     }
 
+    @Nested
+    @DisplayName("Character Ranges")
+    class CharacterRanges {
+
+        @ParameterizedTest
+        @CsvSource({
+            "[a-z], m",
+            "[a-z0-9], 7",
+            "[A-Fa-f], E",
+            "[x-z_], _",
+            "[a-], -",
+            "[-a], -"
+        })
+        @DisplayName("Ranges and edge hyphens should match their members")
+        void testRangeMatches(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "[a-z], M",
+            "[a-z0-9], @",
+            "[b-d], a",
+            "[b-d], e",
+            "[^a-z], q"
+        })
+        @DisplayName("Ranges should not match characters outside their bounds")
+        void testRangeNonMatches(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+    }
+
+    @Nested
+    @DisplayName("Non-ASCII Members")
+    class NonAsciiMembers {
+
+        @ParameterizedTest
+        @CsvSource({
+            "[αβγ], β",
+            "[а-я], ж",
+            "[^abc], é",
+            "[^α-ω], a"
+        })
+        @DisplayName("Non-ASCII members and negations should match")
+        void testNonAsciiMatches(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "[αβγ], δ",
+            "[а-я], z",
+            "[^α-ω], λ",
+            "[^éa], é"
+        })
+        @DisplayName("Non-ASCII characters outside the class should not match")
+        void testNonAsciiNonMatches(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+    }
+
     @Nested
     @DisplayName("Character Class Consistency")
     class CharacterClassConsistency {
@@ -1,5 +1,7 @@
 package io.codecrafters.grep.patterns;
 
+import io.codecrafters.grep.matcher.RegexPattern;
+import io.codecrafters.grep.parser.PatternFlag;
 import io.codecrafters.grep.testutil.BaseRegexTest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -7,6 +9,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * Comprehensive tests for digit pattern (\d) functionality.
  * Tests that \d matches any digit character [0-9].
@@ -70,4 +76,27 @@ class DigitPatternTest extends BaseRegexTest {
         assertMatches(DIGIT_PATTERN, "abc1");
         assertMatches(DIGIT_PATTERN, "xyz9");
     }
+
+    @Nested
+    @DisplayName("Character Modes")
+    class CharacterModes {
+
+        private final RegexPattern ascii = RegexPattern.compile(DIGIT_PATTERN, Set.of(PatternFlag.ASCII));
+
+        @ParameterizedTest
+        @ValueSource(strings = {"٣", "१२", "５"})
+        @DisplayName("\\d should match non-ASCII digits only in Unicode mode")
+        void testUnicodeOnly(String text) {
+            assertMatches(DIGIT_PATTERN, text);
+            assertFalse(ascii.matches(text));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"0", "x7", "2024"})
+        @DisplayName("\\d should match ASCII digits in both modes")
+        void testAsciiInBothModes(String text) {
+            assertMatches(DIGIT_PATTERN, text);
+            assertTrue(ascii.matches(text));
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package io.codecrafters.grep.patterns;
+
+import io.codecrafters.grep.testutil.BaseRegexTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for anchors, the wildcard, repetition, alternation and groups.
+ * Covers GNU grep's literal reading of misplaced operators and linear-time matching.
+ */
+@DisplayName("Operator Pattern Tests")
+class OperatorPatternTest extends BaseRegexTest {
+
+    @Nested
+    @DisplayName("Anchors")
+    class Anchors {
+
+        @ParameterizedTest
+        @CsvSource({
+            "^log, log line",
+            "line$, log line",
+            "^log line$, log line",
+            "^$, ''",
+            "^\\d+$, 2024",
+            "^*, *star"
+        })
+        @DisplayName("Anchors should match at the line bounds")
+        void testMatchesAnchored(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "^log, a log line",
+            "line$, log lines",
+            "^log line$, log line!",
+            "^$, ' '",
+            "x^, x^",
+            "^\\d+$, 2024a"
+        })
+        @DisplayName("Anchors should not match away from the line bounds")
+        void testDoesNotMatchAnchored(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+    }
+
+    @Nested
+    @DisplayName("Repetition")
+    class Repetition {
+
+        @ParameterizedTest
+        @CsvSource({
+            "ca*t, ct",
+            "ca*t, caaat",
+            "ca+t, cat",
+            "colou?r, color",
+            "colou?r, colour",
+            "a{3}, baaab",
+            "'a{2,}b', aaaab",
+            "'x{,2}y', y",
+            "'\\d{2,3}-', 12-",
+            "c.t, cut",
+            "(ab)+c, xababc",
+            "*a, *a",
+            "+, 1+1"
+        })
+        @DisplayName("Repeated elements and groups should match their allowed counts")
+        void testMatchesRepetition(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "ca+t, ct",
+            "colou?r, colouur",
+            "^a{3}$, aaaa",
+            "'^\\d{2,3}-', 1-",
+            "c.t, ct",
+            "(ab)+c, aac"
+        })
+        @DisplayName("Repeated elements should not match outside their allowed counts")
+        void testDoesNotMatchRepetition(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "'a{', a{",
+            "'a{x}', a{x}",
+            "'a{1', a{1",
+            "'a{}', a{}",
+            "'a{1,2,3}', 'a{1,2,3}'",
+            "'{1}', x{1}"
+        })
+        @DisplayName("A brace that does not start an interval should match literally")
+        void testLiteralBrace(String pattern, String text) {
+            assertMatches(pattern, text);
+            assertDoesNotMatch(pattern, "a");
+        }
+    }
+
+    @Nested
+    @DisplayName("Alternation")
+    class Alternation {
+
+        @ParameterizedTest
+        @CsvSource({
+            "cat|dog, hotdog",
+            "cat|dog, cats",
+            "^(cat|dog)s?$, dogs",
+            "a|, anything",
+            "'I see (\\d (cat|dog)s?(, | and )?)+$', 'I see 1 cat, 2 dogs and 3 cats'"
+        })
+        @DisplayName("Any alternative should be able to match")
+        void testMatchesAlternation(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "cat|dog, cow",
+            "^(cat|dog)s?$, dogss",
+            "^(a|b)c, ba ac"
+        })
+        @DisplayName("Alternatives should not match text none of them describes")
+        void testDoesNotMatchAlternation(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+
+        @Test
+        @DisplayName("An unmatched closing parenthesis should be literal")
+        void testUnmatchedCloseParenthesis() {
+            assertMatches("a)", "(a)");
+            assertDoesNotMatch("a)", "a");
+        }
+    }
+
+    @Test
+    @DisplayName("Repetition that expands past the state limit should throw ParseException")
+    void testRepetitionTooLarge() {
+        assertParseException("(a{1000}){1000}");
+    }
+
+    @Nested
+    @DisplayName("Linear Time")
+    class LinearTime {
+
+        @Test
+        @DisplayName("Nested repetition should not backtrack exponentially")
+        void testNestedRepetition() {
+            assertPerformance("(a*)*b", "a".repeat(100_000), 2000);
+            assertPerformance("(a|aa)+$", "a".repeat(100_000) + "b", 2000);
+        }
+
+        @Test
+        @DisplayName("Counted repetition should not backtrack exponentially")
+        void testCountedRepetition() {
+            assertPerformance("(x+x+)+y", "x".repeat(10_000), 2000);
+            assertPerformance("^(a?){25}a{25}$", "a".repeat(25), 2000);
+        }
+    }
+}
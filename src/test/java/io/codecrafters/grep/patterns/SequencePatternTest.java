@@ -0,0 +1,94 @@
+package io.codecrafters.grep.patterns;
+
+import io.codecrafters.grep.testutil.BaseRegexTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for patterns made of several elements matched one after another.
+ * Covers pure literals, mixed escapes and classes, and escaped metacharacters.
+ */
+@DisplayName("Sequence Pattern Tests")
+class SequencePatternTest extends BaseRegexTest {
+
+    @Nested
+    @DisplayName("Literal Sequences")
+    class LiteralSequences {
+
+        @ParameterizedTest
+        @CsvSource({
+            "apple, apple",
+            "apple, pineapple pie",
+            "ab, aab",
+            "needle, haystack with a needle in it",
+            "café, un café noir"
+        })
+        @DisplayName("Literal sequences should match where they occur")
+        void testMatchesLiteral(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "apple, appl",
+            "apple, aple",
+            "ab, ba",
+            "needle, needl e",
+            "café, cafe"
+        })
+        @DisplayName("Literal sequences should not match partial occurrences")
+        void testDoesNotMatchLiteral(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+    }
+
+    @Nested
+    @DisplayName("Mixed Sequences")
+    class MixedSequences {
+
+        @ParameterizedTest
+        @CsvSource({
+            "\\d\\d, abc42",
+            "\\w\\d, x1",
+            "[ab]c, zbc",
+            "[^0-9]x, 1ax",
+            "a\\.b, a.b",
+            "\\d apple, sold 3 apples"
+        })
+        @DisplayName("Mixed sequences should match where every element lines up")
+        void testMatchesMixed(String pattern, String text) {
+            assertMatches(pattern, text);
+        }
+
+        @ParameterizedTest
+        @CsvSource({
+            "\\d\\d, a1b2",
+            "\\w\\d, x_",
+            "[ab]c, cc",
+            "a\\.b, axb",
+            "\\d apple, sold three apples"
+        })
+        @DisplayName("Mixed sequences should not match when any element fails")
+        void testDoesNotMatchMixed(String pattern, String text) {
+            assertDoesNotMatch(pattern, text);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"(ab", "a(b|c", "a{3,1}", "a{2000}"})
+    @DisplayName("Unclosed groups and invalid interval bounds should throw ParseException")
+    void testMalformedOperators(String pattern) {
+        assertParseException(pattern);
+    }
+
+    @Test
+    @DisplayName("Escaped metacharacters should be matched literally")
+    void testEscapedMetacharacters() {
+        assertMatches("\\(\\*\\)", "f(*)");
+        assertDoesNotMatch("\\(\\*\\)", "f(x)");
+    }
+}
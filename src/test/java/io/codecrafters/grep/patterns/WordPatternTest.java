@@ -1,5 +1,7 @@
 package io.codecrafters.grep.patterns;
 
+import io.codecrafters.grep.matcher.RegexPattern;
+import io.codecrafters.grep.parser.PatternFlag;
 import io.codecrafters.grep.testutil.BaseRegexTest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -7,6 +9,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * Comprehensive tests for word pattern (\w) functionality.
  * Tests that \w matches word characters: letters, digits, and underscore.
@@ -70,4 +76,27 @@ class WordPatternTest extends BaseRegexTest {
         assertMatches(WORD_PATTERN, "###a");  // at end
         assertMatches(WORD_PATTERN, "#a#");   // in middle
     }
+
+    @Nested
+    @DisplayName("Character Modes")
+    class CharacterModes {
+
+        private final RegexPattern ascii = RegexPattern.compile(WORD_PATTERN, Set.of(PatternFlag.ASCII));
+
+        @ParameterizedTest
+        @ValueSource(strings = {"é", "中文", "ß"})
+        @DisplayName("\\w should match non-ASCII word chars only in Unicode mode")
+        void testUnicodeOnly(String text) {
+            assertMatches(WORD_PATTERN, text);
+            assertFalse(ascii.matches(text));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"a", "Z_", "9"})
+        @DisplayName("\\w should match ASCII word chars in both modes")
+        void testAsciiInBothModes(String text) {
+            assertMatches(WORD_PATTERN, text);
+            assertTrue(ascii.matches(text));
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package io.codecrafters.grep.performance;
+
+import io.codecrafters.grep.matcher.Match;
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests that matching over caller-owned buffers allocates nothing per call
+ * once the matcher is warm. Allocation is measured with the per-thread
+ * counters of {@link com.sun.management.ThreadMXBean}.
+ */
+@DisplayName("Allocation Tests")
+class AllocationTest {
+
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 100_000;
+    // Covers the counter reads themselves, not anything proportional to the calls.
+    private static final long SLACK_BYTES = 1024;
+
+    private static final String LINE = "2024-05-01 12:00:03 INFO request id=42 took 7ms café";
+    private static final String WIDE_LINE = "2024-05-01 用户 张伟 登录成功 请求 id=42 耗时 7ms Ελληνικά δοκιμή 错误 кириллица";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\\d", "id=\\d", "took", "[^ ]é", "xyz\\w"})
+    @DisplayName("Matching chars, char arrays and UTF-8 regions should not allocate")
+    void testNoAllocationPerCall(String regex) {
+        RegexPattern pattern = RegexPattern.compile(regex);
+        char[] chars = ("padding " + LINE).toCharArray();
+        CharBuffer charBuffer = CharBuffer.wrap(LINE);
+        ByteBuffer direct = ByteBuffer.allocateDirect(256);
+        byte[] encoded = LINE.getBytes(StandardCharsets.UTF_8);
+        direct.put(encoded).flip();
+
+        assertNoAllocation(() -> pattern.matches(chars, 8, chars.length - 8));
+        assertNoAllocation(() -> pattern.matches(charBuffer));
+        assertNoAllocation(() -> pattern.matches(direct, 0, encoded.length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\\d", "登录失败", "[^ ]误", "\\w错", "δ\\d"})
+    @DisplayName("Matching text with many chars beyond Latin-1 should not allocate")
+    void testWideCharsDoNotAllocate(String regex) {
+        RegexPattern pattern = RegexPattern.compile(regex);
+        char[] chars = WIDE_LINE.toCharArray();
+        byte[] encoded = WIDE_LINE.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.put(encoded).flip();
+
+        assertNoAllocation(() -> pattern.matches(chars, 0, chars.length));
+        assertNoAllocation(() -> pattern.matches(direct, 0, encoded.length));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\\d", "id=\\d", "took", "[^ ]é"})
+    @DisplayName("Finding match positions into a reused Match should not allocate")
+    void testFindDoesNotAllocate(String regex) {
+        RegexPattern pattern = RegexPattern.compile(regex);
+        Match match = new Match();
+        ByteBuffer heap = ByteBuffer.wrap(LINE.getBytes(StandardCharsets.UTF_8));
+
+        assertNoAllocation(() -> pattern.find(LINE, 0, match) && pattern.find(LINE, match.end(), match));
+        assertNoAllocation(() -> pattern.find(heap, 0, heap.limit(), match));
+    }
+
+    private static void assertNoAllocation(BooleanSupplier call) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        boolean expected = call.getAsBoolean();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.getAsBoolean();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            if (call.getAsBoolean() != expected) {
+                fail("Result changed between calls");
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < SLACK_BYTES,
+                String.format("Expected no allocation per call, but %d bytes were allocated over %d calls",
+                        allocated, MEASURED_CALLS));
+    }
+}
@@ -0,0 +1,166 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for reading gzip input through the pipelined inflater.
+ * Small buffers force many hand-offs between the inflating pool and the reader.
+ */
+@DisplayName("Gzip Input Tests")
+class GzipChannelTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ReadableByteChannel channel(byte[] bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    private static String readAll(GzipChannel channel, int readSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(readSize);
+        while (channel.read(buffer.clear()) >= 0) {
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    @DisplayName("Decompression")
+    class Decompression {
+
+        private static final String LOG = "line α\n".repeat(5000);
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 7, 4096, GzipChannel.DEFAULT_BUFFER_SIZE})
+        @DisplayName("Decompressed bytes should be identical for every buffer size")
+        void testRoundTrip(int bufferSize) throws IOException {
+            try (GzipChannel channel = new GzipChannel(channel(gzip(LOG)), bufferSize)) {
+                assertEquals(LOG, readAll(channel, 1000));
+                assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+            }
+        }
+
+        @Test
+        @DisplayName("Concatenated gzip members should read as one stream")
+        void testConcatenatedMembers() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(gzip("first\n"));
+            bytes.write(gzip("second\n"));
+            try (GzipChannel channel = new GzipChannel(channel(bytes.toByteArray()), 4)) {
+                assertEquals("first\nsecond\n", readAll(channel, 3));
+            }
+        }
+
+        @Test
+        @DisplayName("Corrupt input should fail the read that reaches it")
+        void testCorruptInput() throws IOException {
+            byte[] bytes = gzip(LOG);
+            bytes[bytes.length / 2] ^= 0x5A;
+            try (GzipChannel channel = new GzipChannel(channel(bytes), 1024)) {
+                assertThrows(IOException.class, () -> readAll(channel, 1024));
+            }
+        }
+
+        @Test
+        @DisplayName("Many open inputs should share the inflating threads without stalling each other")
+        void testManyOpenInputs() throws IOException {
+            int cores = Runtime.getRuntime().availableProcessors();
+            List<GzipChannel> channels = new ArrayList<>();
+            try {
+                for (int i = 0; i < cores * 4; i++) {
+                    channels.add(new GzipChannel(channel(gzip(LOG)), 64));
+                }
+                // Inputs opened last can only be inflated once earlier ones give their threads up.
+                for (GzipChannel channel : channels.reversed()) {
+                    assertEquals(LOG, readAll(channel, 1000));
+                }
+            } finally {
+                for (GzipChannel channel : channels) {
+                    channel.close();
+                }
+            }
+            long inflaters = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("gzip-inflater-"))
+                    .count();
+            assertTrue(inflaters <= cores, inflaters + " inflating threads");
+        }
+
+        @Test
+        @DisplayName("Closing before the end should stop the inflater and reject later reads")
+        void testEarlyClose() throws IOException {
+            GzipChannel channel = new GzipChannel(channel(gzip(LOG)), 16);
+            channel.read(ByteBuffer.allocate(8));
+            channel.close();
+
+            assertFalse(channel.isOpen());
+            assertThrows(IOException.class, () -> channel.read(ByteBuffer.allocate(8)));
+            assertThrows(IllegalArgumentException.class, () -> new GzipChannel(channel(new byte[0]), 0));
+        }
+    }
+
+    @Nested
+    @DisplayName("File Searching")
+    class FileSearching {
+
+        @Test
+        @DisplayName("Gzip files should be detected by their header and searched by decompressed line")
+        void testSearchesGzipFile() throws IOException {
+            Path compressed = Files.write(tempDir.resolve("app.log.gz"), gzip("ok\nerror 1\nok\nerror 2\n"));
+            Path plain = Files.writeString(tempDir.resolve("plain.log"), "error 3\n");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Searcher searcher = new Searcher(RegexPattern.compile("\\d"), SearchOptions.builder().byteOffset(true).build(), out);
+
+            assertTrue(searcher.search(compressed, "app.log.gz"));
+            assertTrue(searcher.search(plain, "plain.log"));
+            assertEquals("app.log.gz:3:error 1\napp.log.gz:14:error 2\nplain.log:0:error 3\n",
+                    out.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Only a complete gzip header should mark a file as compressed")
+        void testDetection() throws IOException {
+            Path empty = Files.write(tempDir.resolve("empty"), new byte[0]);
+            Path single = Files.write(tempDir.resolve("single"), new byte[]{0x1f});
+            Path compressed = Files.write(tempDir.resolve("c.gz"), gzip("x"));
+            try (FileChannel a = FileChannel.open(empty);
+                 FileChannel b = FileChannel.open(single);
+                 FileChannel c = FileChannel.open(compressed)) {
+                assertFalse(GzipChannel.isGzip(a));
+                assertFalse(GzipChannel.isGzip(b));
+                assertTrue(GzipChannel.isGzip(c));
+                assertEquals(0, c.position());
+            }
+        }
+    }
+}
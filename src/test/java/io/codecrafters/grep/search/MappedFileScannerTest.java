@@ -0,0 +1,138 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.ByteSearch;
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for memory-mapped file scanning and the word-at-a-time newline search.
+ * Tiny windows force lines to straddle window boundaries.
+ */
+@DisplayName("Mapped File Scanning Tests")
+class MappedFileScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private List<String> lines(String content, long windowSize) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("input.log"), content);
+        List<String> lines = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file)) {
+            new MappedFileScanner(0, windowSize).scan(channel,
+                    (buffer, offset, length, position) -> {
+                        String line = SearcherTest.text(buffer, offset, length);
+                        assertEquals(SearcherTest.at(content, position, length), line, "line position");
+                        lines.add(line);
+                        return true;
+                    });
+        }
+        return lines;
+    }
+
+    @Nested
+    @DisplayName("Window Handling")
+    class WindowHandling {
+
+        @ParameterizedTest
+        @ValueSource(longs = {1, 3, 8, 1024})
+        @DisplayName("Lines should be identical for every window size")
+        void testLinesAcrossWindows(long windowSize) throws IOException {
+            assertEquals(List.of("alpha", "", "beta gamma delta", "z"),
+                    lines("alpha\n\nbeta gamma delta\nz", windowSize));
+        }
+
+        @Test
+        @DisplayName("A trailing newline should not produce an extra empty line")
+        void testTrailingNewline() throws IOException {
+            assertEquals(List.of("one", "two"), lines("one\ntwo\n", 4));
+        }
+
+        @Test
+        @DisplayName("Empty files should produce no lines")
+        void testEmptyFile() throws IOException {
+            assertEquals(List.of(), lines("", 4));
+        }
+
+        @Test
+        @DisplayName("Window sizes outside the mappable range should be rejected")
+        void testInvalidWindowSize() {
+            assertThrows(IllegalArgumentException.class, () -> new MappedFileScanner(0, 0));
+            assertThrows(IllegalArgumentException.class, () -> new MappedFileScanner(0, 1L << 31));
+        }
+    }
+
+    @Nested
+    @DisplayName("File Searching")
+    class FileSearching {
+
+        @Test
+        @DisplayName("Files above the threshold should be searched through the mapped path")
+        void testSearchesMappedFile() throws IOException {
+            Path file = Files.writeString(tempDir.resolve("app.log"), "ok\nerror 1\nok\nerror 2\n");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Searcher searcher = new Searcher(RegexPattern.compile("\\d"), out,
+                    new LineScanner(), new MappedFileScanner(0, 5), new ParallelFileScanner());
+
+            assertTrue(searcher.search(file, "app.log"));
+            assertEquals("app.log:error 1\napp.log:error 2\n", out.toString(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @DisplayName("Before-context should be mapped again when it falls behind the window")
+        void testContextAcrossWindows() throws IOException {
+            Path file = Files.writeString(tempDir.resolve("app.log"), "ok one\nok two\nerror 1\nok three\n");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Searcher searcher = new Searcher(RegexPattern.compile("\\d"), SearchOptions.builder().beforeContext(2).build(),
+                    out, new LineScanner(), new MappedFileScanner(0, 3), new ParallelFileScanner());
+
+            assertTrue(searcher.search(file, null));
+            assertEquals("ok one\nok two\nerror 1\n", out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Nested
+    @DisplayName("Newline Search")
+    class NewlineSearch {
+
+        @ParameterizedTest
+        @ValueSource(ints = {0, 1, 7, 8, 9, 15, 16, 23})
+        @DisplayName("The first newline should be found at every word offset in both byte orders")
+        void testFindsFirstNewline(int index) {
+            byte[] bytes = new byte[24];
+            bytes[index] = '\n';
+            if (index + 1 < bytes.length) {
+                bytes[bytes.length - 1] = '\n';
+            }
+            for (ByteOrder order : List.of(ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes).order(order);
+                assertEquals(index, ByteSearch.indexOf(buffer, 0, bytes.length, (byte) '\n'), order.toString());
+            }
+        }
+
+        @Test
+        @DisplayName("Bytes adjacent to the target value should not be reported")
+        void testNoFalsePositives() {
+            ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0x0B, 0x09, 0x0B, (byte) 0x8A, 0x0B, 0x09, 0x0B, 0x01, 0x0A});
+            assertEquals(8, ByteSearch.indexOf(buffer, 0, 9, (byte) '\n'));
+            assertEquals(-1, ByteSearch.indexOf(buffer, 0, 8, (byte) '\n'));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for chunked parallel file search.
+ * Tiny chunks spread a small file over many concurrent tasks so ordering and boundaries are exercised.
+ */
+@DisplayName("Parallel File Search Tests")
+class ParallelFileScannerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdownNow();
+    }
+
+    private List<String> matchingLines(String pattern, String content, int chunkSize) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("input.log"), content);
+        List<String> lines = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file)) {
+            new ParallelFileScanner(pool, 0, chunkSize).scan(channel, RegexPattern.compile(pattern),
+                    (buffer, offset, length, position) -> {
+                        String line = SearcherTest.text(buffer, offset, length);
+                        assertEquals(SearcherTest.at(content, position, length), line, "line position");
+                        lines.add(line);
+                        return true;
+                    });
+        }
+        return lines;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 13, 4096})
+    @DisplayName("Matching lines should be reported in file order for every chunk size")
+    void testOrderedResults(int chunkSize) throws IOException {
+        String content = IntStream.range(0, 500)
+                .mapToObj(i -> i % 3 == 0 ? "line " + i + " x" : "line " + i)
+                .collect(Collectors.joining("\n"));
+        List<String> expected = content.lines().filter(line -> line.endsWith("x")).toList();
+
+        assertEquals(expected, matchingLines("x", content, chunkSize));
+    }
+
+    @Test
+    @DisplayName("Lines longer than a chunk should stay whole")
+    void testLongLines() throws IOException {
+        String longLine = "a".repeat(100) + "7" + "b".repeat(100);
+        assertEquals(List.of(longLine, "9"), matchingLines("\\d", "zz\n" + longLine + "\nq\n9\n", 8));
+    }
+
+    @Test
+    @DisplayName("Large files should be searched in parallel with the same output as a sequential search")
+    void testSearcherUsesParallelPath() throws IOException {
+        String content = IntStream.range(0, 200).mapToObj(i -> "row" + i % 7).collect(Collectors.joining("\n", "", "\n"));
+        Path file = Files.writeString(tempDir.resolve("big.log"), content);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Searcher searcher = new Searcher(RegexPattern.compile("3"), out, new LineScanner(),
+                new MappedFileScanner(), new ParallelFileScanner(pool, 0, 64));
+
+        assertTrue(searcher.search(file, null));
+        String expected = content.lines().filter(line -> line.contains("3")).map(line -> line + "\n").collect(Collectors.joining());
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Searches that stop at an early match should not read chunks ahead in parallel")
+    void testEarlyStopIsSequential() throws IOException {
+        String content = "hit\n" + "row\n".repeat(500);
+        Path file = Files.writeString(tempDir.resolve("big.log"), content);
+        for (SearchOptions options : List.of(SearchOptions.builder().quiet(true).build(),
+                SearchOptions.builder().listFiles(true).build(), SearchOptions.builder().maxCount(1).build())) {
+            Searcher searcher = new Searcher(RegexPattern.compile("hit"), options, new ByteArrayOutputStream(),
+                    new LineScanner(), new MappedFileScanner(), new ParallelFileScanner(pool, 0, 64));
+
+            assertTrue(searcher.search(file, "big.log"));
+        }
+        assertEquals(0, pool.getPoolSize(), "no chunk should have been submitted");
+    }
+
+    @Test
+    @DisplayName("Single-threaded pools should not take the parallel path")
+    void testRequiresParallelism() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertFalse(new ParallelFileScanner(single, 0, 64).accepts(1L << 40));
+            assertTrue(new ParallelFileScanner(pool, 0, 64).accepts(1));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for recursive directory search on virtual threads.
+ * Output order across files is unspecified, so lines are compared as sorted sets.
+ */
+@DisplayName("Recursive Search Tests")
+class RecursiveSearcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<String> sortedLines(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8).lines().sorted().toList();
+    }
+
+    @Test
+    @DisplayName("Every file in the tree should be searched and labelled with its path")
+    void testSearchesTree() throws IOException, InterruptedException {
+        Files.createDirectories(tempDir.resolve("src/nested"));
+        Files.writeString(tempDir.resolve("a.txt"), "alpha 1\nbeta\n");
+        Files.writeString(tempDir.resolve("src/b.txt"), "gamma\n");
+        Files.writeString(tempDir.resolve("src/nested/c.txt"), "delta 3\nepsilon 4\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        boolean matched = new RecursiveSearcher(RegexPattern.compile("\\d"), out, (file, e) -> fail(e))
+                .search(List.of(tempDir), tempDir);
+
+        assertTrue(matched);
+        assertEquals(List.of("a.txt:alpha 1", "src/nested/c.txt:delta 3", "src/nested/c.txt:epsilon 4"),
+                sortedLines(out));
+    }
+
+    @Test
+    @DisplayName("-l should list each file with a match once")
+    void testListFiles() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("a.txt"), "1\n2\n3\n");
+        Files.writeString(tempDir.resolve("b.txt"), "none\n");
+        Files.writeString(tempDir.resolve("c.txt"), "x\n9\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new RecursiveSearcher(RegexPattern.compile("\\d"), SearchOptions.builder().listFiles(true).build(), out,
+                (file, e) -> fail(e), 4).search(List.of(tempDir), tempDir);
+
+        assertEquals(List.of("a.txt", "c.txt"), sortedLines(out));
+    }
+
+    @Test
+    @DisplayName("Lines should never interleave when many files are searched concurrently")
+    void testLineAtomicOutput() throws IOException, InterruptedException {
+        String line = "x".repeat(200);
+        String content = IntStream.range(0, 100).mapToObj(i -> line).collect(Collectors.joining("\n"));
+        for (int i = 0; i < 40; i++) {
+            Files.writeString(tempDir.resolve("f" + i + ".txt"), content);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new RecursiveSearcher(RegexPattern.compile("x"), out, (file, e) -> fail(e), 4)
+                .search(List.of(tempDir), tempDir);
+
+        List<String> lines = sortedLines(out);
+        assertEquals(4000, lines.size());
+        assertTrue(lines.stream().allMatch(l -> l.matches("f\\d+\\.txt:x{200}")));
+    }
+
+    @Test
+    @DisplayName("Unreadable roots should be reported without stopping the search")
+    void testReportsErrors() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("ok.txt"), "hit\n");
+        List<Path> failures = Collections.synchronizedList(new ArrayList<>());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        boolean matched = new RecursiveSearcher(RegexPattern.compile("h"), out, (file, e) -> failures.add(file))
+                .search(List.of(tempDir.resolve("missing"), tempDir.resolve("ok.txt")), null);
+
+        assertTrue(matched);
+        assertEquals(List.of(tempDir.resolve("missing")), failures);
+        assertEquals(List.of(tempDir.resolve("ok.txt") + ":hit"), sortedLines(out));
+    }
+
+    @Test
+    @DisplayName("A non-positive open file limit should be rejected")
+    void testInvalidLimit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecursiveSearcher(RegexPattern.compile("a"), new ByteArrayOutputStream(), (file, e) -> { }, 0));
+    }
+}
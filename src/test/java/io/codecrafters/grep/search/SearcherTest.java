@@ -0,0 +1,320 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for streaming line splitting and line-by-line searching.
+ * Small scanner buffers are used to force compaction and growth paths.
+ */
+@DisplayName("Streaming Search Tests")
+class SearcherTest {
+
+    private static ReadableByteChannel channel(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> lines(String content, int bufferSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        new LineScanner(bufferSize).scan(channel(content),
+                (buffer, offset, length, position) -> {
+                    String line = text(buffer, offset, length);
+                    assertEquals(at(content, position, length), line, "line position");
+                    lines.add(line);
+                    return true;
+                });
+        return lines;
+    }
+
+    // Returns the text of the given UTF-8 byte range of content.
+    static String at(String content, long position, int length) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return new String(bytes, (int) position, length, StandardCharsets.UTF_8);
+    }
+
+    static String text(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String search(String pattern, String content, String label) throws IOException {
+        return search(pattern, SearchOptions.DEFAULT, content, label);
+    }
+
+    private static String search(String pattern, SearchOptions options, String content, String label)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new Searcher(RegexPattern.compile(pattern), options, out, new LineScanner(8),
+                new MappedFileScanner(), new ParallelFileScanner()).search(channel(content), label);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    @DisplayName("Line Splitting")
+    class LineSplitting {
+
+        @Test
+        @DisplayName("Lines should be split on newlines, keeping a final unterminated line")
+        void testSplitsLines() throws IOException {
+            assertEquals(List.of("one", "two", "", "three"), lines("one\ntwo\n\nthree", 64));
+        }
+
+        @Test
+        @DisplayName("Lines spanning buffer refills should be reassembled")
+        void testLinesAcrossRefills() throws IOException {
+            assertEquals(List.of("abcdef", "ghijklmnop", "q"), lines("abcdef\nghijklmnop\nq\n", 4));
+        }
+
+        @Test
+        @DisplayName("Empty input should produce no lines")
+        void testEmptyInput() throws IOException {
+            assertEquals(List.of(), lines("", 4));
+        }
+
+        @Test
+        @DisplayName("Non-positive buffer sizes should be rejected")
+        void testInvalidBufferSize() {
+            assertThrows(IllegalArgumentException.class, () -> new LineScanner(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Line Searching")
+    class LineSearching {
+
+        @Test
+        @DisplayName("Only matching lines should be written")
+        void testWritesMatchingLines() throws IOException {
+            assertEquals("id 42\nport 8080\n", search("\\d", "id 42\nname\nport 8080\nhost", null));
+        }
+
+        @Test
+        @DisplayName("Matching lines should carry the label prefix")
+        void testLabelPrefix() throws IOException {
+            assertEquals("app.log:error\n", search("o", "error\nwarn\n", "app.log"));
+        }
+
+        @Test
+        @DisplayName("Multi-byte characters should be decoded before matching")
+        void testDecodesUtf8() throws IOException {
+            assertEquals("naïve\n", search("ï", "naive\nnaïve\n", null));
+        }
+
+        @Test
+        @DisplayName("Search should report whether any line matched")
+        void testReportsMatch() throws IOException {
+            Searcher searcher = new Searcher(RegexPattern.compile("z"), new ByteArrayOutputStream());
+            assertFalse(searcher.search(channel("abc\ndef\n"), null));
+            assertTrue(searcher.search(channel("abc\nxyz\n"), null));
+        }
+
+        @Test
+        @DisplayName("A closed searcher's matcher should be reused with its DFA cache warm")
+        void testReusesMatcherAfterClose() throws IOException {
+            RegexPattern pattern = RegexPattern.compile("[a-z]+\\d{2}");
+            String content = "abc12\nzz\nq9\n".repeat(20);
+            try (Searcher searcher = new Searcher(pattern, new ByteArrayOutputStream())) {
+                searcher.search(channel(content), null);
+            }
+            long statesBuilt = pattern.dfaStats().statesBuilt();
+
+            try (Searcher searcher = new Searcher(pattern, new ByteArrayOutputStream())) {
+                assertTrue(searcher.search(channel(content), null));
+            }
+            assertTrue(statesBuilt > 0);
+            assertEquals(statesBuilt, pattern.dfaStats().statesBuilt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Match Output")
+    class MatchOutput {
+
+        private final SearchOptions onlyMatching = SearchOptions.builder().onlyMatching(true).build();
+        private final SearchOptions byteOffset = SearchOptions.builder().byteOffset(true).build();
+        private final SearchOptions both = SearchOptions.builder().onlyMatching(true).byteOffset(true).build();
+
+        @Test
+        @DisplayName("-o should print every match on its own line")
+        void testOnlyMatching() throws IOException {
+            assertEquals("4\n2\n8\n0\n8\n0\n", search("\\d", onlyMatching, "id 42\nname\nport 8080\n", null));
+            assertEquals("a.log:ab\na.log:ab\n", search("ab", onlyMatching, "xabyab\n", "a.log"));
+        }
+
+        @Test
+        @DisplayName("-o should apply anchors to the line, not to where the previous match ended")
+        void testOnlyMatchingAnchored() throws IOException {
+            assertEquals("a\na\n", search("^a", onlyMatching, "aaa\nba\nab\n", null));
+            assertEquals("b\n", search("b$", onlyMatching, "bbb\nbx\n", null));
+        }
+
+        @Test
+        @DisplayName("-b should prefix lines with their byte offset in the input")
+        void testByteOffset() throws IOException {
+            assertEquals("0:id 42\n11:port 8080\n", search("\\d", byteOffset, "id 42\nname\nport 8080\nhost", null));
+        }
+
+        @Test
+        @DisplayName("-o with -b should prefix each match with its own byte offset")
+        void testOnlyMatchingWithByteOffset() throws IOException {
+            assertEquals("1:b7\n10:é9\n", search("[^ ]\\d", both, "ab7\ncafé é9\n", null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Inverted And Context Output")
+    class InvertedAndContextOutput {
+
+        private static final String LOG = "a\nb\nERR 1\nc\nd\ne\nERR 2\nf\n";
+
+        @Test
+        @DisplayName("-v should select the lines that do not match, also for -c")
+        void testInvert() throws IOException {
+            assertEquals("a\nb\nc\nd\ne\nf\n", search("ERR", SearchOptions.builder().invert(true).build(), LOG, null));
+            assertEquals("6\n", search("ERR", SearchOptions.builder().invert(true).countOnly(true).build(), LOG, null));
+            assertEquals("", search("ERR", SearchOptions.builder().invert(true).onlyMatching(true).build(), LOG, null));
+        }
+
+        @Test
+        @DisplayName("Context lines should be marked with '-' and groups separated by --")
+        void testContext() throws IOException {
+            SearchOptions context = SearchOptions.builder().beforeContext(1).afterContext(1).build();
+            SearchOptions before = SearchOptions.builder().beforeContext(2).build();
+
+            assertEquals("x-b\nx:ERR 1\nx-c\n--\nx-e\nx:ERR 2\nx-f\n", search("ERR", context, LOG, "x"));
+            assertEquals("a\nb\nERR 1\n--\nd\ne\nERR 2\n", search("ERR", before, LOG, null));
+        }
+
+        @Test
+        @DisplayName("Overlapping or adjacent context should print each line once without a separator")
+        void testAdjacentGroups() throws IOException {
+            SearchOptions after = SearchOptions.builder().afterContext(3).build();
+            SearchOptions before = SearchOptions.builder().beforeContext(5).build();
+
+            assertEquals("ERR 1\nc\nd\ne\nERR 2\nf\n", search("ERR", after, LOG, null));
+            assertEquals("a\nb\nERR 1\nc\nd\ne\nERR 2\n", search("ERR", before, LOG, null));
+        }
+
+        @Test
+        @DisplayName("-b should use the context separator for context lines")
+        void testByteOffsets() throws IOException {
+            SearchOptions options = SearchOptions.builder().beforeContext(1).byteOffset(true).build();
+            assertEquals("2-b\n4:ERR 1\n--\n14-e\n16:ERR 2\n", search("ERR", options, LOG, null));
+        }
+
+        @Test
+        @DisplayName("Before-context should survive buffer compaction in the scanner")
+        void testContextAcrossCompaction() throws IOException {
+            String log = "first long line\nsecond long line\nthird ERR line\nfourth long line\n";
+            SearchOptions options = SearchOptions.builder().beforeContext(2).build();
+            assertEquals("first long line\nsecond long line\nthird ERR line\n", search("ERR", options, log, null));
+        }
+
+        @Test
+        @DisplayName("-m should still print the after-context of the last selected line")
+        void testMaxCountWithContext() throws IOException {
+            SearchOptions options = SearchOptions.builder().maxCount(1).afterContext(4).build();
+            assertEquals("ERR 1\nc\nd\ne\nERR 2\n", search("ERR", options, LOG, null));
+        }
+
+        @Test
+        @DisplayName("-v should apply to context selection")
+        void testInvertedContext() throws IOException {
+            SearchOptions options = SearchOptions.builder().invert(true).afterContext(1).maxCount(2).build();
+            assertEquals("a\nb\nERR 1\n", search("ERR", options, LOG, null));
+        }
+
+        @Test
+        @DisplayName("Negative context lengths should be rejected")
+        void testNegativeContext() {
+            assertThrows(IllegalArgumentException.class, () -> SearchOptions.builder().beforeContext(-1));
+            assertThrows(IllegalArgumentException.class, () -> SearchOptions.builder().afterContext(-1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Early Termination")
+    class EarlyTermination {
+
+        private static final String LOG = "ERROR one\nok\nERROR two\nok\nERROR three\n" + "filler line\n".repeat(1000);
+
+        // Counts the bytes the searcher actually pulls from the input.
+        private long[] bytesRead;
+
+        private ReadableByteChannel countingChannel(String content) {
+            ReadableByteChannel source = channel(content);
+            bytesRead = new long[1];
+            return new ReadableByteChannel() {
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    int read = source.read(dst);
+                    bytesRead[0] += Math.max(read, 0);
+                    return read;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return source.isOpen();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    source.close();
+                }
+            };
+        }
+
+        private String run(SearchOptions options, String label) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new Searcher(RegexPattern.compile("ERROR"), options, out, new LineScanner(64),
+                    new MappedFileScanner(), new ParallelFileScanner()).search(countingChannel(LOG), label);
+            return out.toString(StandardCharsets.UTF_8);
+        }
+
+        @Test
+        @DisplayName("-c should print the number of matching lines")
+        void testCount() throws IOException {
+            assertEquals("3\n", run(SearchOptions.builder().countOnly(true).build(), null));
+            assertEquals("app.log:2\n", run(SearchOptions.builder().countOnly(true).maxCount(2).build(), "app.log"));
+        }
+
+        @Test
+        @DisplayName("-q should print nothing and stop reading at the first match")
+        void testQuiet() throws IOException {
+            assertEquals("", run(SearchOptions.builder().quiet(true).countOnly(true).build(), null));
+            assertTrue(bytesRead[0] < LOG.length());
+        }
+
+        @Test
+        @DisplayName("-l should print the input name once and stop reading at the first match")
+        void testListFiles() throws IOException {
+            assertEquals("app.log\n", run(SearchOptions.builder().listFiles(true).build(), "app.log"));
+            assertTrue(bytesRead[0] < LOG.length());
+            assertEquals("(standard input)\n", run(SearchOptions.builder().listFiles(true).build(), null));
+        }
+
+        @Test
+        @DisplayName("-m should stop reading after the given number of matching lines")
+        void testMaxCount() throws IOException {
+            assertEquals("ERROR one\nERROR two\n", run(SearchOptions.builder().maxCount(2).build(), null));
+            assertTrue(bytesRead[0] < LOG.length());
+            assertEquals("", run(SearchOptions.builder().maxCount(0).build(), null));
+            assertEquals(0, bytesRead[0]);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package io.codecrafters.grep.search;
+
+import io.codecrafters.grep.matcher.RegexPattern;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for building and querying the trigram index of a directory.
+ */
+@DisplayName("Trigram Index Tests")
+class TrigramIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void writeCorpus() throws IOException {
+        Files.createDirectories(tempDir.resolve("old"));
+        Files.writeString(tempDir.resolve("app.log"), "connection refused\nuser login ok\n");
+        Files.writeString(tempDir.resolve("old/db.log"), "deadlock détecté\nslow query\n");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write("timeout after 30s\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(tempDir.resolve("old/net.log.gz"), bytes.toByteArray());
+    }
+
+    private boolean mayMatch(TrigramIndex.Query query, String file) throws IOException {
+        Path path = tempDir.resolve(file);
+        return query.mayMatch(path, Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    @Nested
+    @DisplayName("Queries")
+    class Queries {
+
+        @Test
+        @DisplayName("Only files holding every trigram of every literal should be candidates")
+        void testCandidates() throws IOException {
+            TrigramIndex.build(tempDir);
+            TrigramIndex index = TrigramIndex.open(tempDir);
+            TrigramIndex.Query login = index.query(List.of("login"));
+            TrigramIndex.Query both = index.query(List.of("slow", "détecté"));
+            TrigramIndex.Query timeout = index.query(List.of("timeout"));
+
+            assertEquals(3, index.indexedFileCount());
+            assertTrue(mayMatch(login, "app.log"));
+            assertFalse(mayMatch(login, "old/db.log"));
+            assertTrue(mayMatch(both, "old/db.log"));
+            assertFalse(mayMatch(both, "app.log"));
+            assertTrue(mayMatch(timeout, "old/net.log.gz"));
+            assertFalse(mayMatch(timeout, "app.log"));
+        }
+
+        @Test
+        @DisplayName("Trigrams should not span lines")
+        void testTrigramsWithinLines() throws IOException {
+            TrigramIndex.build(tempDir);
+            TrigramIndex.Query query = TrigramIndex.open(tempDir).query(List.of("eduse"));
+
+            assertFalse(mayMatch(query, "app.log"));
+        }
+
+        @Test
+        @DisplayName("Literals shorter than a trigram should rule nothing out")
+        void testShortLiterals() throws IOException {
+            TrigramIndex.build(tempDir);
+            TrigramIndex index = TrigramIndex.open(tempDir);
+
+            assertTrue(mayMatch(index.query(List.of()), "app.log"));
+            assertTrue(mayMatch(index.query(List.of("zz", "q")), "app.log"));
+        }
+
+        @Test
+        @DisplayName("Files changed or added after the build should always be candidates")
+        void testStaleFiles() throws IOException {
+            TrigramIndex.build(tempDir);
+            Files.writeString(tempDir.resolve("app.log"), "user login failed\n");
+            Files.writeString(tempDir.resolve("new.log"), "fresh\n");
+            TrigramIndex.Query query = TrigramIndex.open(tempDir).query(List.of("failed"));
+
+            assertTrue(mayMatch(query, "app.log"));
+            assertTrue(mayMatch(query, "new.log"));
+            assertFalse(mayMatch(query, "old/db.log"));
+        }
+
+        @Test
+        @DisplayName("Spilling postings in small runs should build the same index and leave no temporary files")
+        void testSpilledRuns() throws IOException {
+            TrigramIndex.build(tempDir);
+            byte[] inMemory = Files.readAllBytes(tempDir.resolve(TrigramIndex.FILE_NAME));
+            TrigramIndex.build(tempDir, 7);
+
+            assertArrayEquals(inMemory, Files.readAllBytes(tempDir.resolve(TrigramIndex.FILE_NAME)));
+            try (var files = Files.list(tempDir)) {
+                assertEquals(List.of(TrigramIndex.FILE_NAME, "app.log", "old"),
+                        files.map(file -> file.getFileName().toString()).sorted().toList());
+            }
+        }
+
+        @Test
+        @DisplayName("Building should require a directory, and opening a valid index")
+        void testInvalidInputs() throws IOException {
+            assertThrows(IOException.class, () -> TrigramIndex.build(tempDir.resolve("app.log")));
+            assertFalse(TrigramIndex.exists(tempDir));
+            Files.writeString(tempDir.resolve(TrigramIndex.FILE_NAME), "not an index");
+            assertThrows(IOException.class, () -> TrigramIndex.open(tempDir));
+        }
+    }
+
+    @Nested
+    @DisplayName("Recursive Search")
+    class RecursiveSearch {
+
+        private List<String> search(String pattern, SearchOptions options) throws InterruptedException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new RecursiveSearcher(RegexPattern.compile(pattern), options, out, (file, e) -> fail(e), 4)
+                    .search(List.of(tempDir), tempDir);
+            return out.toString(StandardCharsets.UTF_8).lines().sorted().toList();
+        }
+
+        // Rewrites a file behind the index's back, keeping the size and time it was indexed with.
+        private void rewriteUnnoticed(String file, String content) throws IOException {
+            Path path = tempDir.resolve(file);
+            FileTime modified = Files.getLastModifiedTime(path);
+            Files.writeString(path, content);
+            Files.setLastModifiedTime(path, modified);
+        }
+
+        @Test
+        @DisplayName("Search results should not change once a directory is indexed")
+        void testSameResults() throws IOException, InterruptedException {
+            List<String> before = search("time\\w+ after \\d", SearchOptions.DEFAULT);
+            TrigramIndex.build(tempDir);
+
+            assertEquals(List.of("old/net.log.gz:timeout after 30s"), before);
+            assertEquals(before, search("time\\w+ after \\d", SearchOptions.DEFAULT));
+        }
+
+        @Test
+        @DisplayName("Files the index rules out should not be read, except with -v or -c")
+        void testSkipsRuledOutFiles() throws IOException, InterruptedException {
+            TrigramIndex.build(tempDir);
+            rewriteUnnoticed("app.log", "connection REFUSED\nuser login ok\n");
+            rewriteUnnoticed("old/db.log", "connection refused\nslow query\n");
+
+            assertEquals(List.of(), search("n refused", SearchOptions.DEFAULT));
+            assertEquals(List.of("app.log:0", "old/db.log:1", "old/net.log.gz:0"),
+                    search("n refused", SearchOptions.builder().countOnly(true).build()));
+            assertEquals(List.of("app.log:user login ok"), search("user login", SearchOptions.DEFAULT));
+        }
+    }
+}